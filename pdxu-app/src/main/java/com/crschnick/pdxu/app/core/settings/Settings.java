@@ -9,6 +9,7 @@ import com.crschnick.pdxu.app.lang.Language;
 import com.crschnick.pdxu.app.lang.LanguageManager;
 import com.crschnick.pdxu.app.util.integration.ConverterSupport;
 import com.crschnick.pdxu.app.util.integration.IronyHelper;
+import com.crschnick.pdxu.io.savegame.ParallelZipOutputStream;
 import javafx.application.Platform;
 
 import java.io.IOException;
@@ -146,6 +147,20 @@ public final class Settings extends AbstractSettings {
             1,
             60
     );
+    public final SettingsEntry.IntegerEntry compressionLevel = new SettingsEntry.IntegerEntry(
+            "COMPRESSION_LEVEL",
+            "compressionLevel",
+            6,
+            0,
+            9
+    );
+    public final SettingsEntry.IntegerEntry importThreads = new SettingsEntry.IntegerEntry(
+            "IMPORT_THREADS",
+            "importThreads",
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)),
+            1,
+            16
+    );
     public final SettingsEntry.ChoiceEntry<Language> language = new SettingsEntry.ChoiceEntry<>(
             "LANGUAGE",
             "language",
@@ -191,6 +206,8 @@ public final class Settings extends AbstractSettings {
             Platform.runLater(GuiSettings::showSettings);
         }
 
+        ParallelZipOutputStream.setDefaultLevel(Math.max(0, Math.min(9, compressionLevel.getValue())));
+
         // Disable irony if needed
         if (ironyDir.getValue() == null) {
             launchIrony.set(false);
@@ -26,14 +26,15 @@ public class GuiSettings {
         VBox vbox = new VBox(
                 GuiSettingsComponents.section("GAME_DIRS", applyFuncs, s.vic3, s.eu4, s.ck3, s.hoi4, s.stellaris, s.ck2, s.vic2),
                 new Separator(),
-                GuiSettingsComponents.section("GENERAL", applyFuncs, s.enableAutoUpdate, s.storageDirectory),
+                GuiSettingsComponents.section("GENERAL", applyFuncs, s.enableAutoUpdate, s.storageDirectory, s.compressionLevel),
                 new Separator(),
                 GuiSettingsComponents.section("IMPORTS", applyFuncs,
                         s.importOnGameNormalExit,
                         s.enabledTimedImports,
                         s.timedImportsInterval,
                         s.playSoundOnBackgroundImport,
-                        s.deleteOnImport),
+                        s.deleteOnImport,
+                        s.importThreads),
                 new Separator(),
                 GuiSettingsComponents.section("INTERFACE", applyFuncs,
                         s.fontSize,
@@ -16,7 +16,6 @@ import java.net.URL;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
@@ -246,6 +245,10 @@ public abstract class FileImportTarget {
             }, true);
         }
 
+        SavegameStorage<?, ?>.Import createImport() {
+            return savegameStorage.new Import(path, true, getSourceFileChecksum(), getCampaignIdOverride().orElse(null));
+        }
+
         @Override
         public void delete() {
             TaskExecutor.getInstance().submitTask(() -> {
@@ -287,13 +290,7 @@ public abstract class FileImportTarget {
                 md.update(Long.toString(timestamp).getBytes());
                 md.update(Long.toString(Files.size(path)).getBytes());
 
-                StringBuilder c = new StringBuilder();
-                ByteBuffer b = ByteBuffer.wrap(md.digest());
-                for (int i = 0; i < 16; i++) {
-                    var hex = String.format("%02x", b.get());
-                    c.append(hex);
-                }
-                return c.toString();
+                return HexFormat.of().formatHex(md.digest());
             } catch (Exception e) {
                 // Even the existence check before is no guarantee that no IO exception
                 // will be thrown because the file doesn't exist anymore
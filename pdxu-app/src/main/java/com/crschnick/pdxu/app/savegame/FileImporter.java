@@ -61,15 +61,13 @@ public class FileImporter {
             logger.debug("No targets to import.");
 
         } else {
-            for (FileImportTarget t : targets) {
-                logger.debug("Starting to import target " + t.getName() + " from " + input);
-                t.importTarget(s -> {
-                    if (Settings.getInstance().deleteOnImport.getValue()) {
-                        logger.debug("Deleting import target " + t.getName());
-                        t.delete();
-                    }
-                });
-            }
+            logger.debug("Starting to import " + targets.size() + " targets from " + input);
+            importTargets(targets, (t, s) -> {
+                if (Settings.getInstance().deleteOnImport.getValue()) {
+                    logger.debug("Deleting import target " + t.getName());
+                    t.delete();
+                }
+            });
         }
 
         logger.debug("Deleting queue file " + queueFile);
@@ -87,7 +85,7 @@ public class FileImporter {
 
     public static void importTargets(Collection<? extends FileImportTarget> targets) {
         Map<FileImportTarget, SavegameParseResult> statusMap = new HashMap<>();
-        targets.forEach(t -> t.importTarget(s -> {
+        importTargets(targets, (t, s) -> {
             // Only save non success results
             s.ifPresent(result -> {
                 statusMap.put(t, result);
@@ -97,7 +95,7 @@ public class FileImporter {
                 logger.debug("Deleting import target " + t.getName());
                 t.delete();
             }
-        }));
+        });
         TaskExecutor.getInstance().submitTask(
                 () -> {
                     // Report errors
@@ -114,6 +112,26 @@ public class FileImporter {
                 }, false);
     }
 
+    /**
+     * Imports savegame files on multiple workers in one task executor task, see {@link ImportPipeline}.
+     * Other targets are imported one after another as before.
+     */
+    private static void importTargets(Collection<? extends FileImportTarget> targets,
+                                      BiConsumer<FileImportTarget, Optional<SavegameParseResult>> onFinish) {
+        List<FileImportTarget.StandardImportTarget> standardTargets = new ArrayList<>();
+        for (var t : targets) {
+            if (t instanceof FileImportTarget.StandardImportTarget st) {
+                standardTargets.add(st);
+            } else {
+                t.importTarget(s -> onFinish.accept(t, s));
+            }
+        }
+
+        if (standardTargets.size() > 0) {
+            TaskExecutor.getInstance().submitTask(() -> ImportPipeline.importTargets(standardTargets, onFinish::accept), true);
+        }
+    }
+
     public static void addToImportQueue(String toImport) {
         try {
             FileUtils.forceMkdir(PdxuInstallation.getInstance().getImportQueueLocation().toFile());
@@ -0,0 +1,218 @@
+package com.crschnick.pdxu.app.savegame;
+
+import com.crschnick.pdxu.app.core.ErrorHandler;
+import com.crschnick.pdxu.app.core.settings.Settings;
+import com.crschnick.pdxu.app.util.ThreadHelper;
+import com.crschnick.pdxu.io.savegame.SavegameParseResult;
+import com.crschnick.pdxu.io.savegame.ZipReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Imports multiple files at the same time. Reading, melting, parsing and creating the info of each file
+ * run on a pool of import workers, while the results are committed to their storage one after another
+ * on the calling thread as soon as they are ready.
+ * <p>
+ * Before a file is read, the memory that the import will need until it is committed is reserved from a budget of the heap.
+ * It is estimated from the file size and, for zip files, the uncompressed size of the entries.
+ * An import that does not fit waits until earlier imports have been committed,
+ * but a single import is always allowed to run.
+ * If the import is aborted, for example by an interrupt, the remaining imports are cancelled
+ * and the memory of all imports that were parsed but not committed is released.
+ */
+final class ImportPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportPipeline.class);
+
+    // Parsing and creating the info needs roughly this many times the uncompressed size
+    private static final int PARSE_MEMORY_FACTOR = 5;
+
+    // Memory is also freed by the garbage collector, which does not notify waiting imports
+    private static final long MEMORY_WAIT_MILLIS = 1000;
+
+    private static final Object MEMORY_LOCK = new Object();
+    private static long reservedMemory;
+    private static ThreadPoolExecutor workers;
+
+    private static synchronized ExecutorService getWorkers() {
+        int threads = Math.max(1, Settings.getInstance().importThreads.getValue());
+        if (workers == null) {
+            workers = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    r -> ThreadHelper.create("import worker", true, r));
+            workers.allowCoreThreadTimeOut(true);
+        } else if (threads > workers.getMaximumPoolSize()) {
+            workers.setMaximumPoolSize(threads);
+            workers.setCorePoolSize(threads);
+        } else if (threads < workers.getMaximumPoolSize()) {
+            workers.setCorePoolSize(threads);
+            workers.setMaximumPoolSize(threads);
+        }
+        return workers;
+    }
+
+    private static void reserveMemory(long bytes) throws InterruptedException {
+        var runtime = Runtime.getRuntime();
+        synchronized (MEMORY_LOCK) {
+            while (reservedMemory > 0) {
+                long used = runtime.totalMemory() - runtime.freeMemory();
+                boolean fitsBudget = reservedMemory + bytes <= runtime.maxMemory() / 2;
+                boolean fitsHeap = used + bytes <= runtime.maxMemory();
+                if (fitsBudget && fitsHeap) {
+                    break;
+                }
+
+                logger.debug("Waiting for " + (bytes / 1_000_000) + "MB of memory to import file");
+                MEMORY_LOCK.wait(MEMORY_WAIT_MILLIS);
+            }
+            reservedMemory += bytes;
+        }
+    }
+
+    private static void releaseMemory(long bytes) {
+        synchronized (MEMORY_LOCK) {
+            reservedMemory -= bytes;
+            MEMORY_LOCK.notifyAll();
+        }
+    }
+
+    private record Prepared(FileImportTarget.StandardImportTarget target, SavegameStorage<?, ?>.Import i, long memory) {
+    }
+
+    /**
+     * Estimates the memory of an import without reading the file. Only the central directory of zip files is read.
+     */
+    private static long estimateMemory(Path file) {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long parsed = ZipReader.open(channel.map(FileChannel.MapMode.READ_ONLY, 0, size))
+                    .map(zip -> zip.getEntries().stream().mapToLong(ZipReader.Entry::size).sum())
+                    .orElse(size);
+            return size + parsed * PARSE_MEMORY_FACTOR;
+        } catch (Exception ex) {
+            // Reading the file will fail as well and report the error
+            return 0;
+        }
+    }
+
+    private static Prepared prepare(FileImportTarget.StandardImportTarget target) throws InterruptedException {
+        // File might no longer exist, since this is executed asynchronously
+        if (!Files.exists(target.getPath())) {
+            return new Prepared(target, null, 0);
+        }
+
+        var i = target.createImport();
+        long memory = estimateMemory(target.getPath());
+        reserveMemory(memory);
+        try {
+            if (!i.read()) {
+                releaseMemory(memory);
+                return new Prepared(target, i, 0);
+            }
+
+            i.melt();
+
+            // Melted binary files are larger than the estimate. The reservation is requested again instead of enlarged,
+            // as waiting while holding a part of the budget could block all imports
+            long needed = i.getReadSize() + i.getParsedSize() * PARSE_MEMORY_FACTOR;
+            if (needed > memory) {
+                releaseMemory(memory);
+                memory = 0;
+                reserveMemory(needed);
+                memory = needed;
+            }
+
+            i.parse();
+        } catch (Throwable t) {
+            releaseMemory(memory);
+            throw t;
+        }
+        return new Prepared(target, i, memory);
+    }
+
+    /**
+     * Keeps track of the imports that hold reserved memory, but have not been committed yet.
+     * Once the pipeline is closed, imports that finish afterwards release their memory themselves.
+     */
+    private static final class Pending {
+
+        private final Set<Prepared> prepared = Collections.newSetFromMap(new IdentityHashMap<>());
+        private boolean closed;
+
+        private synchronized Prepared add(Prepared p) {
+            if (closed) {
+                releaseMemory(p.memory());
+                return null;
+            }
+
+            prepared.add(p);
+            return p;
+        }
+
+        private synchronized void remove(Prepared p) {
+            prepared.remove(p);
+        }
+
+        private synchronized void close() {
+            closed = true;
+            prepared.forEach(p -> releaseMemory(p.memory()));
+            prepared.clear();
+        }
+    }
+
+    /**
+     * Imports all targets and blocks until all of them have been committed.
+     * The consumer is called on the calling thread in the order in which the imports are committed.
+     */
+    static void importTargets(List<FileImportTarget.StandardImportTarget> targets,
+                              BiConsumer<FileImportTarget.StandardImportTarget, Optional<SavegameParseResult>> onFinish) {
+        CompletionService<Prepared> completion = new ExecutorCompletionService<>(getWorkers());
+        var pending = new Pending();
+        List<Future<Prepared>> futures = new ArrayList<>(targets.size());
+        for (var t : targets) {
+            futures.add(completion.submit(() -> pending.add(prepare(t))));
+        }
+
+        try {
+            for (int i = 0; i < targets.size(); i++) {
+                Prepared p;
+                try {
+                    p = completion.take().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    ErrorHandler.handleException(e.getCause());
+                    continue;
+                }
+
+                pending.remove(p);
+                if (p.i() == null) {
+                    continue;
+                }
+
+                try {
+                    onFinish.accept(p.target(), p.i().commit());
+                } finally {
+                    releaseMemory(p.memory());
+                }
+            }
+        } finally {
+            // Imports that have not started yet are dropped, running ones are interrupted
+            futures.forEach(f -> f.cancel(true));
+            pending.close();
+        }
+    }
+}
@@ -19,6 +19,7 @@ public final class SavegameEntry<T, I extends SavegameInfo<T>> implements Compar
     private final GameDate date;
     private final SavegameNotes notes;
     private final List<String> sourceFileChecksums;
+    private String fastChecksum;
 
     public SavegameEntry(String name, UUID uuid,
                          String contentChecksum, GameDate date, SavegameNotes notes,
@@ -134,6 +135,14 @@ public final class SavegameEntry<T, I extends SavegameInfo<T>> implements Compar
         this.sourceFileChecksums.add(sourceFileChecksum);
     }
 
+    public String getFastChecksum() {
+        return fastChecksum;
+    }
+
+    public void setFastChecksum(String fastChecksum) {
+        this.fastChecksum = fastChecksum;
+    }
+
     public SavegameNotes getNotes() {
         return notes;
     }
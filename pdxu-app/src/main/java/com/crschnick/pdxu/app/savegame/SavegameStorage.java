@@ -16,14 +16,17 @@ import com.crschnick.pdxu.app.installation.Game;
 import com.crschnick.pdxu.app.lang.GameLocalisation;
 import com.crschnick.pdxu.app.lang.LanguageManager;
 import com.crschnick.pdxu.app.lang.PdxuI18n;
+import com.crschnick.pdxu.app.util.ChecksumHelper;
 import com.crschnick.pdxu.app.util.ConfigHelper;
 import com.crschnick.pdxu.app.util.ImageHelper;
 import com.crschnick.pdxu.app.util.JsonHelper;
+import com.crschnick.pdxu.app.util.ThreadHelper;
 import com.crschnick.pdxu.app.util.integration.RakalyHelper;
 import com.crschnick.pdxu.io.savegame.SavegameContent;
 import com.crschnick.pdxu.io.savegame.SavegameFormatException;
 import com.crschnick.pdxu.io.savegame.SavegameParseResult;
 import com.crschnick.pdxu.io.savegame.SavegameType;
+import com.crschnick.pdxu.io.savegame.ZipReader;
 import com.crschnick.pdxu.model.GameDate;
 import com.crschnick.pdxu.model.GameDateType;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -44,14 +47,15 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -61,6 +65,9 @@ public abstract class SavegameStorage<
 
 
     public static final BidiMap<Game, SavegameStorage<?, ?>> ALL = new DualHashBidiMap<>();
+    private static final long SAVE_DELAY_MILLIS = 1000;
+    private static final ScheduledExecutorService SAVE_EXECUTOR = Executors.newSingleThreadScheduledExecutor(
+            r -> ThreadHelper.create("storage writer", true, r));
     private final Logger logger;
     private final Class<I> infoClass;
     private final FailableBiFunction<SavegameContent, Boolean, I, Throwable> infoFactory;
@@ -70,6 +77,16 @@ public abstract class SavegameStorage<
     private final SavegameType type;
     private final ObservableSet<SavegameCampaign<T, I>> collections = FXCollections.observableSet(new HashSet<>());
 
+    // The campaign images that were last written or read, so that only changed images are written
+    private final Map<UUID, Image> writtenCampaignImages = new HashMap<>();
+    private SavegameStorageJournal journal;
+    private ScheduledFuture<?> pendingSave;
+
+    // Entries by their content and source file checksums. Branches can share a content checksum
+    private final Map<String, List<SavegameEntry<T, I>>> entriesByChecksum = new HashMap<>();
+    private final Map<String, List<SavegameEntry<T, I>>> entriesByFastChecksum = new HashMap<>();
+    private final Map<String, List<SavegameEntry<T, I>>> entriesBySourceFileChecksum = new HashMap<>();
+
     public SavegameStorage(
             String name,
             GameDateType dateType,
@@ -205,7 +222,7 @@ public abstract class SavegameStorage<
 
     public static void reset() {
         for (SavegameStorage<?, ?> s : ALL.values()) {
-            s.saveData();
+            s.close();
         }
         ALL.clear();
     }
@@ -213,12 +230,50 @@ public abstract class SavegameStorage<
     private synchronized void loadData() throws Exception {
         Files.createDirectories(getSavegameDataDirectory());
 
-        JsonNode node;
-        if (Files.exists(getDataFile())) {
-            node = ConfigHelper.readConfig(getDataFile());
-        } else {
-            return;
+        // Storages that were created before the journal existed are migrated once, the old files are kept.
+        // The migration is only complete once the first snapshot has been written, so an interrupted one is repeated
+        boolean migrate = !SavegameStorageJournal.hasSnapshot(getSavegameDataDirectory()) && Files.exists(getLegacyDataFile());
+        if (migrate) {
+            logger.info("Migrating storage data to journal");
+            loadLegacyData();
+        }
+
+        journal = SavegameStorageJournal.open(getSavegameDataDirectory());
+        loadJournalData();
+        if (migrate) {
+            flushData();
+            journal.compact();
+        }
+    }
+
+    private void loadJournalData() {
+        for (JsonNode c : journal.getCampaigns().values()) {
+            String name = c.required("name").textValue();
+            GameDate date = dateType.fromString(c.required("date").textValue());
+            UUID id = UUID.fromString(c.required("uuid").textValue());
+            if (!Files.isDirectory(getSavegameDataDirectory().resolve(id.toString()))) {
+                continue;
+            }
+
+            // Campaigns of an interrupted migration are loaded from the legacy data instead
+            if (getSavegameCampaign(id).isPresent()) {
+                continue;
+            }
+
+            Instant lastDate = Instant.parse(c.required("lastPlayed").textValue());
+            Image image = ImageHelper.loadImage(
+                    getSavegameDataDirectory().resolve(id.toString()).resolve("campaign.png"));
+            if (image != ImageHelper.DEFAULT_IMAGE) {
+                writtenCampaignImages.put(id, image);
+            }
+            var collection = new SavegameCampaign<T, I>(lastDate, name, id, date, image);
+            collections.add(collection);
+            loadEntries(collection, c);
         }
+    }
+
+    private void loadLegacyData() throws Exception {
+        JsonNode node = ConfigHelper.readConfig(getLegacyDataFile());
 
         {
             JsonNode c = node.required("campaigns");
@@ -233,6 +288,9 @@ public abstract class SavegameStorage<
                 Instant lastDate = Instant.parse(c.get(i).required("lastPlayed").textValue());
                 Image image = ImageHelper.loadImage(
                         getSavegameDataDirectory().resolve(id.toString()).resolve("campaign.png"));
+                if (image != ImageHelper.DEFAULT_IMAGE) {
+                    writtenCampaignImages.put(id, image);
+                }
                 collections.add(new SavegameCampaign<>(lastDate, name, id, date, image));
             }
         }
@@ -265,69 +323,192 @@ public abstract class SavegameStorage<
                 continue;
             }
 
-            JsonNode campaignNode = JsonHelper.read(colFile);
-            StreamSupport.stream(campaignNode.required("entries").spliterator(), false).forEach(entryNode -> {
-                UUID eId = UUID.fromString(entryNode.required("uuid").textValue());
-                String name = Optional.ofNullable(entryNode.get("name")).map(JsonNode::textValue).orElse(null);
-                GameDate date = dateType.fromString(entryNode.required("date").textValue());
-                String checksum = entryNode.required("checksum").textValue();
-                SavegameNotes notes = SavegameNotes.fromNode(entryNode.get("notes"));
-                List<String> sourceFileChecksums = Optional.ofNullable(entryNode.get("sourceFileChecksums"))
-                        .map(n -> StreamSupport.stream(n.spliterator(), false)
-                                .map(JsonNode::textValue)
-                                .collect(Collectors.toList()))
-                        .orElse(List.of());
-                collection.add(new SavegameEntry<>(name, eId, checksum, date, notes, sourceFileChecksums));
-            });
+            loadEntries(collection, JsonHelper.read(colFile));
         }
     }
 
+    private void loadEntries(SavegameCampaign<T, I> collection, JsonNode campaignNode) {
+        StreamSupport.stream(campaignNode.required("entries").spliterator(), false).forEach(entryNode -> {
+            UUID eId = UUID.fromString(entryNode.required("uuid").textValue());
+            String name = Optional.ofNullable(entryNode.get("name")).map(JsonNode::textValue).orElse(null);
+            GameDate date = dateType.fromString(entryNode.required("date").textValue());
+            String checksum = entryNode.required("checksum").textValue();
+            SavegameNotes notes = SavegameNotes.fromNode(entryNode.get("notes"));
+            List<String> sourceFileChecksums = Optional.ofNullable(entryNode.get("sourceFileChecksums"))
+                    .map(n -> StreamSupport.stream(n.spliterator(), false)
+                            .map(JsonNode::textValue)
+                            .collect(Collectors.toList()))
+                    .orElse(List.of());
+            var entry = new SavegameEntry<T, I>(name, eId, checksum, date, notes, sourceFileChecksums);
+            // Entries imported by older versions do not have a fast checksum
+            entry.setFastChecksum(Optional.ofNullable(entryNode.get("fastChecksum")).map(JsonNode::textValue).orElse(null));
+            collection.add(entry);
+            addToIndex(entry);
+        });
+    }
+
+    private void addToIndex(SavegameEntry<T, I> e) {
+        if (e.getContentChecksum() != null) {
+            entriesByChecksum.computeIfAbsent(e.getContentChecksum(), k -> new ArrayList<>(1)).add(e);
+        }
+        if (e.getFastChecksum() != null) {
+            entriesByFastChecksum.computeIfAbsent(e.getFastChecksum(), k -> new ArrayList<>(1)).add(e);
+        }
+        for (var sourceFileChecksum : e.getSourceFileChecksums()) {
+            entriesBySourceFileChecksum.computeIfAbsent(sourceFileChecksum, k -> new ArrayList<>(1)).add(e);
+        }
+    }
+
+    private void removeFromIndex(SavegameEntry<T, I> e) {
+        if (e.getContentChecksum() != null) {
+            removeFromIndex(entriesByChecksum, e.getContentChecksum(), e);
+        }
+        if (e.getFastChecksum() != null) {
+            removeFromIndex(entriesByFastChecksum, e.getFastChecksum(), e);
+        }
+        for (var sourceFileChecksum : e.getSourceFileChecksums()) {
+            removeFromIndex(entriesBySourceFileChecksum, sourceFileChecksum, e);
+        }
+    }
+
+    private void removeFromIndex(Map<String, List<SavegameEntry<T, I>>> index, String checksum, SavegameEntry<T, I> e) {
+        var list = index.get(checksum);
+        if (list == null) {
+            return;
+        }
+
+        list.remove(e);
+        if (list.isEmpty()) {
+            index.remove(checksum);
+        }
+    }
+
+    private void addSourceFileChecksum(SavegameEntry<T, I> e, String sourceFileChecksum) {
+        e.addSourceFileChecksum(sourceFileChecksum);
+        entriesBySourceFileChecksum.computeIfAbsent(sourceFileChecksum, k -> new ArrayList<>(1)).add(e);
+    }
+
+    private void setFastChecksum(SavegameEntry<T, I> e, String fastChecksum) {
+        if (e.getFastChecksum() != null) {
+            return;
+        }
+
+        e.setFastChecksum(fastChecksum);
+        entriesByFastChecksum.computeIfAbsent(fastChecksum, k -> new ArrayList<>(1)).add(e);
+    }
+
+    /**
+     * Schedules the storage data to be written. All changes that happen until then,
+     * e.g. during a bulk import, are written together.
+     */
     private synchronized void saveData() {
-        ObjectNode n = JsonNodeFactory.instance.objectNode();
-
-        ArrayNode c = n.putArray("campaigns");
-        getCollections().forEach(col -> {
-            ObjectNode campaignFileNode = JsonNodeFactory.instance.objectNode();
-            ArrayNode entries = campaignFileNode.putArray("entries");
-            col.getSavegames().stream()
-                    .map(entry -> JsonNodeFactory.instance.objectNode()
-                            .put("name", entry.getName())
-                            .put("date", entry.getDate().toString())
-                            .put("checksum", entry.getContentChecksum())
-                            .put("uuid", entry.getUuid().toString())
-                            .<ObjectNode>set("sourceFileChecksums", JsonNodeFactory.instance.arrayNode().addAll(
-                                    entry.getSourceFileChecksums().stream()
-                                            .map(TextNode::new)
-                                            .collect(Collectors.toList())))
-                            .<ObjectNode>set("notes", SavegameNotes.toNode(entry.getNotes())))
-                    .forEach(entries::add);
-
-            ConfigHelper.writeConfig(getSavegameDataDirectory()
-                    .resolve(col.getUuid().toString()).resolve("campaign.json"), campaignFileNode);
-
-            var imgFile = getSavegameDataDirectory()
-                    .resolve(col.getUuid().toString()).resolve("campaign.png");
+        if (pendingSave != null) {
+            return;
+        }
+
+        pendingSave = SAVE_EXECUTOR.schedule(() -> {
             try {
-                ImageHelper.writePng(col.getImage(), imgFile);
-            } catch (IOException e) {
-                logger.error("Couldn't write image " + imgFile, e);
+                flushData();
+            } catch (Throwable t) {
+                ErrorHandler.handleException(t);
             }
+        }, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
 
-            ObjectNode campaignNode = JsonNodeFactory.instance.objectNode()
-                    .put("name", col.getName())
-                    .put("date", col.getDate().toString())
-                    .put("lastPlayed", col.getLastPlayed().toString())
-                    .put("uuid", col.getUuid().toString());
-            c.add(campaignNode);
-        });
+    /**
+     * Writes the data of all campaigns that changed since they were last written or read.
+     */
+    private synchronized void flushData() {
+        if (pendingSave != null) {
+            pendingSave.cancel(false);
+            pendingSave = null;
+        }
+
+        if (journal == null) {
+            return;
+        }
+
+        Set<UUID> existing = new HashSet<>();
+        try {
+            for (var col : getCollections()) {
+                existing.add(col.getUuid());
+
+                ObjectNode campaignNode = JsonNodeFactory.instance.objectNode()
+                        .put("name", col.getName())
+                        .put("date", col.getDate().toString())
+                        .put("lastPlayed", col.getLastPlayed().toString())
+                        .put("uuid", col.getUuid().toString());
+                ArrayNode entries = campaignNode.putArray("entries");
+                col.getSavegames().stream()
+                        .map(entry -> {
+                            var entryNode = JsonNodeFactory.instance.objectNode()
+                                    .put("name", entry.getName())
+                                    .put("date", entry.getDate().toString())
+                                    .put("checksum", entry.getContentChecksum());
+                            if (entry.getFastChecksum() != null) {
+                                entryNode.put("fastChecksum", entry.getFastChecksum());
+                            }
+                            return entryNode
+                                    .put("uuid", entry.getUuid().toString())
+                                    .<ObjectNode>set("sourceFileChecksums", JsonNodeFactory.instance.arrayNode().addAll(
+                                            entry.getSourceFileChecksums().stream()
+                                                    .map(TextNode::new)
+                                                    .collect(Collectors.toList())))
+                                    .<ObjectNode>set("notes", SavegameNotes.toNode(entry.getNotes()));
+                        })
+                        .forEach(entries::add);
+
+                if (!campaignNode.equals(journal.getCampaigns().get(col.getUuid()))) {
+                    journal.put(col.getUuid(), campaignNode);
+                }
 
-        ConfigHelper.writeConfig(getDataFile(), n);
+                // Images are never modified, a changed campaign image is always a new image object
+                if (writtenCampaignImages.get(col.getUuid()) != col.getImage()) {
+                    var imgFile = getSavegameDataDirectory()
+                            .resolve(col.getUuid().toString()).resolve("campaign.png");
+                    try {
+                        ImageHelper.writePng(col.getImage(), imgFile);
+                        writtenCampaignImages.put(col.getUuid(), col.getImage());
+                    } catch (IOException e) {
+                        logger.error("Couldn't write image " + imgFile, e);
+                    }
+                }
+            }
+
+            for (var id : new ArrayList<>(journal.getCampaigns().keySet())) {
+                if (!existing.contains(id)) {
+                    journal.remove(id);
+                }
+            }
+            journal.sync();
+        } catch (IOException e) {
+            ErrorHandler.handleException(e);
+        }
+
+        // Deleted campaigns have to be written again if they are ever added back
+        writtenCampaignImages.keySet().retainAll(existing);
+    }
+
+    private synchronized void close() {
+        flushData();
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            journal.compact();
+            journal.close();
+        } catch (IOException e) {
+            ErrorHandler.handleException(e);
+        }
+        journal = null;
     }
 
     public synchronized void addNewEntryToCampaign(
             UUID campainUuid,
             UUID entryUuid,
             String checksum,
+            String fastChecksum,
             I info,
             String name,
             String sourceFileChecksum,
@@ -339,6 +520,7 @@ public abstract class SavegameStorage<
                 info.getData().getDate(),
                 SavegameNotes.empty(),
                 sourceFileChecksum != null ? List.of(sourceFileChecksum) : List.of());
+        e.setFastChecksum(fastChecksum);
         if (this.getSavegameCampaign(campainUuid).isEmpty()) {
             logger.debug("Adding new campaign " + getDefaultCampaignName(info));
             var img = GameGuiFactory.<T, I>get(ALL.inverseBidiMap().get(this))
@@ -355,6 +537,7 @@ public abstract class SavegameStorage<
         SavegameCampaign<T, I> c = this.getSavegameCampaign(campainUuid).get();
         logger.debug("Adding new entry " + e.getName());
         c.add(e);
+        addToIndex(e);
         c.onSavegamesChange();
     }
 
@@ -392,6 +575,7 @@ public abstract class SavegameStorage<
         }
 
         this.collections.remove(c);
+        c.getSavegames().forEach(this::removeFromIndex);
 
         saveData();
     }
@@ -413,6 +597,7 @@ public abstract class SavegameStorage<
         }
 
         c.getSavegames().remove(e);
+        removeFromIndex(e);
         c.onSavegamesChange();
         if (c.getSavegames().size() == 0) {
             delete(c);
@@ -580,13 +765,14 @@ public abstract class SavegameStorage<
             var bytes = RakalyHelper.toMeltedPlaintext(getSavegameFile(e));
             var struc = type.determineStructure(bytes);
             var succ = struc.parse(bytes).orThrow();
-            var checksum = checksum(bytes);
+            var checksum = ChecksumHelper.md5(bytes);
+            var fastChecksum = ChecksumHelper.xxHash64(bytes);
             var c = succ.content;
             type.generateNewCampaignIdHeuristic(c);
             var targetCollection = type.getCampaignIdHeuristic(c);
             var info = infoFactory.apply(succ.content, false);
             var name = getSavegameCampaign(e).getName() + " (" + PdxuI18n.get("MELTED") + ")";
-            addEntryToCollection(targetCollection, file -> struc.write(file, c), checksum, info, null, name);
+            addEntryToCollection(targetCollection, file -> struc.write(file, c), checksum, fastChecksum, info, null, name);
             saveData();
         } catch (Throwable ex) {
             ErrorHandler.handleException(ex);
@@ -598,124 +784,248 @@ public abstract class SavegameStorage<
             boolean checkDuplicate,
             String sourceFileChecksum,
             UUID customCampaignId) {
-        var status = importSavegameData(file, checkDuplicate, sourceFileChecksum, customCampaignId);
-        saveData();
-        return status;
+        var i = new Import(file, checkDuplicate, sourceFileChecksum, customCampaignId);
+        if (i.read()) {
+            i.melt();
+            i.parse();
+        }
+        return i.commit();
     }
 
-    private String getSaveFileName() {
-        return "savegame." + type.getFileEnding();
-    }
+    /**
+     * The stages of importing one file. Only the final commit changes the state of the storage,
+     * so the other stages can run for multiple files at the same time.
+     * A stage that finishes the import, e.g. because of an error, makes all later stages except the commit no-ops.
+     */
+    final class Import {
+
+        private final Path file;
+        private final boolean checkDuplicate;
+        private final String sourceFileChecksum;
+        private final UUID customCampaignId;
+        private boolean done;
+        private SavegameParseResult failure;
+
+        private byte[] bytes;
+        private String checksum;
+        private String fastChecksum;
+        private byte[] data;
+        private boolean melted;
+        private I info;
+        private UUID targetId;
+        private SavegameEntry<T, I> duplicate;
+
+        Import(Path file, boolean checkDuplicate, String sourceFileChecksum, UUID customCampaignId) {
+            this.file = file;
+            this.checkDuplicate = checkDuplicate;
+            this.sourceFileChecksum = sourceFileChecksum;
+            this.customCampaignId = customCampaignId;
+        }
 
-    private String getInfoFileName() {
-        String cs = IntegrityManager.getInstance().getChecksum(ALL.inverseBidiMap().get(this));
-        return "info_" + cs + ".json";
-    }
+        /**
+         * Reads the file and checks whether it has already been imported.
+         * Files that are already in the storage are recognized by their fast checksum,
+         * which is computed without reading the whole file into memory.
+         *
+         * @return whether the import should continue
+         */
+        boolean read() {
+            logger.debug("Parsing file " + file.toString());
+            if (checkDuplicate) {
+                try {
+                    fastChecksum = ChecksumHelper.xxHash64(file);
+                } catch (Exception ex) {
+                    return fail(new SavegameParseResult.Error(ex));
+                }
+
+                if (findDuplicate()) {
+                    done = true;
+                    return false;
+                }
+            }
 
-    public synchronized void invalidateSavegameInfo(SavegameEntry<T, I> e) {
-        if (Files.exists(getSavegameInfoFile(e))) {
-            logger.debug("Invalidating " + getSavegameInfoFile(e));
             try {
-                Files.delete(getSavegameInfoFile(e));
+                bytes = Files.readAllBytes(file);
+                // The file might have been modified since it was hashed
+                fastChecksum = ChecksumHelper.xxHash64(bytes);
+                checksum = ChecksumHelper.md5(bytes);
+                logger.debug("Checksum is " + checksum);
             } catch (Exception ex) {
-                ErrorHandler.handleException(ex);
+                return fail(new SavegameParseResult.Error(ex));
+            }
+
+            if (checkDuplicate && findDuplicate()) {
+                done = true;
             }
+            return !done;
         }
-    }
 
-    private String checksum(byte[] content) {
-        MessageDigest d;
-        try {
-            d = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("MD5 missing!");
+        /**
+         * Only looks up the entry with the same content, the storage is changed in {@link #commit()}.
+         */
+        private boolean findDuplicate() {
+            synchronized (SavegameStorage.this) {
+                var exists = getSavegameForFastChecksum(fastChecksum);
+                if (exists.isEmpty() && checksum != null) {
+                    exists = getSavegameForChecksum(checksum);
+                }
+                duplicate = exists.orElse(null);
+            }
+
+            if (duplicate != null) {
+                logger.debug("Entry " + duplicate.getName() + " with checksum already in storage");
+                return true;
+            }
+
+            logger.debug("No entry with checksum found");
+            return false;
         }
-        d.update(content);
-        StringBuilder c = new StringBuilder();
-        ByteBuffer b = ByteBuffer.wrap(d.digest());
-        for (int i = 0; i < 16; i++) {
-            var hex = String.format("%02x", b.get());
-            c.append(hex);
+
+        private void addToDuplicate() {
+            setFastChecksum(duplicate, fastChecksum);
+            if (sourceFileChecksum != null) {
+                addSourceFileChecksum(duplicate, sourceFileChecksum);
+            }
         }
-        return c.toString();
-    }
 
-    private Optional<SavegameParseResult> importSavegameData(
-            Path file,
-            boolean checkDuplicate,
-            String sourceFileChecksum,
-            UUID customCampaignId) {
-        logger.debug("Parsing file " + file.toString());
-        final SavegameParseResult[] result = new SavegameParseResult[1];
-        String checksum;
-        byte[] bytes;
-        boolean melted;
-        try {
-            bytes = Files.readAllBytes(file);
-            checksum = checksum(bytes);
-            logger.debug("Checksum is " + checksum);
-            if (checkDuplicate) {
-                var exists = getSavegameForChecksum(checksum);
-                if (exists.isPresent()) {
-                    logger.debug("Entry " + exists.get().getName() + " with checksum already in storage");
-                    if (sourceFileChecksum != null) {
-                        exists.get().addSourceFileChecksum(sourceFileChecksum);
-                    }
-                    return Optional.empty();
+        /**
+         * @return the number of bytes of the file that are kept until the commit
+         */
+        long getReadSize() {
+            return bytes != null ? bytes.length : 0;
+        }
+
+        private boolean fail(SavegameParseResult result) {
+            failure = result;
+            done = true;
+            return false;
+        }
+
+        void melt() {
+            if (done) {
+                return;
+            }
+
+            try {
+                if (type.isBinary(bytes)) {
+                    data = RakalyHelper.toEquivalentPlaintext(file);
+                    melted = true;
                 } else {
-                    logger.debug("No entry with checksum found");
+                    data = bytes;
+                    melted = false;
                 }
+            } catch (Exception ex) {
+                fail(new SavegameParseResult.Error(ex));
             }
+        }
 
-            byte[] data;
-            if (type.isBinary(bytes)) {
-                data = RakalyHelper.toEquivalentPlaintext(file);
-                melted = true;
-            } else {
-                data = bytes;
-                melted = false;
+        /**
+         * @return the number of bytes that will be parsed, i.e. the uncompressed size of all zip entries
+         */
+        long getParsedSize() {
+            if (data == null) {
+                return 0;
             }
-            var struc = type.determineStructure(data);
-            result[0] = struc.parse(data);
-        } catch (SavegameFormatException ex) {
-            return Optional.of(new SavegameParseResult.Invalid(ex.getMessage()));
-        } catch (Exception ex) {
-            return Optional.of(new SavegameParseResult.Error(ex));
+
+            return ZipReader.open(data, 0)
+                    .map(zip -> zip.getEntries().stream().mapToLong(ZipReader.Entry::size).sum())
+                    .orElse((long) data.length);
         }
 
-        final SavegameParseResult[] resultToReturn = new SavegameParseResult[1];
-        result[0].visit(new SavegameParseResult.Visitor() {
-            @Override
-            public void success(SavegameParseResult.Success s) {
-                logger.debug("Parsing was successful. Loading info ...");
-                I info = null;
-                try {
-                    info = infoFactory.apply(s.content, melted);
-                } catch (Throwable e) {
-                    resultToReturn[0] = new SavegameParseResult.Error(e);
-                    return;
-                }
+        /**
+         * Parses the file and creates the info.
+         */
+        void parse() {
+            if (done) {
+                return;
+            }
 
-                var targetId = customCampaignId != null ? customCampaignId : type.getCampaignIdHeuristic(s.content);
-                addEntryToCollection(targetId, file -> Files.write(file, bytes), checksum, info, sourceFileChecksum, null);
+            SavegameParseResult result;
+            try {
+                var struc = type.determineStructure(data);
+                result = struc.parse(data);
+            } catch (SavegameFormatException ex) {
+                fail(new SavegameParseResult.Invalid(ex.getMessage()));
+                return;
+            } catch (Exception ex) {
+                fail(new SavegameParseResult.Error(ex));
+                return;
             }
 
-            @Override
-            public void error(SavegameParseResult.Error e) {
-                logger.error("An error occured during parsing: " + e.error.getMessage());
-                resultToReturn[0] = e;
+            result.visit(new SavegameParseResult.Visitor() {
+                @Override
+                public void success(SavegameParseResult.Success s) {
+                    logger.debug("Parsing was successful. Loading info ...");
+                    try {
+                        info = infoFactory.apply(s.content, melted);
+                    } catch (Throwable e) {
+                        fail(new SavegameParseResult.Error(e));
+                        return;
+                    }
+
+                    targetId = customCampaignId != null ? customCampaignId : type.getCampaignIdHeuristic(s.content);
+                }
+
+                @Override
+                public void error(SavegameParseResult.Error e) {
+                    logger.error("An error occured during parsing: " + e.error.getMessage());
+                    fail(e);
+                }
+
+                @Override
+                public void invalid(SavegameParseResult.Invalid iv) {
+                    logger.error("Savegame is invalid: " + iv.message);
+                    fail(iv);
+                }
+            });
+            data = null;
+        }
+
+        /**
+         * Adds the parsed file to the storage.
+         *
+         * @return the result if the file was not imported successfully or was a duplicate
+         */
+        Optional<SavegameParseResult> commit() {
+            synchronized (SavegameStorage.this) {
+                // Another import of the same content might have been committed since this file was read,
+                // or the entry with the same content might have been deleted
+                if (checkDuplicate && (!done || duplicate != null) && findDuplicate()) {
+                    done = true;
+                }
+
+                if (duplicate != null) {
+                    addToDuplicate();
+                } else if (!done) {
+                    addEntryToCollection(targetId, file -> Files.write(file, bytes), checksum, fastChecksum, info, sourceFileChecksum, null);
+                }
+                saveData();
             }
+            return Optional.ofNullable(failure);
+        }
+    }
 
-            @Override
-            public void invalid(SavegameParseResult.Invalid iv) {
-                logger.error("Savegame is invalid: " + iv.message);
-                resultToReturn[0] = iv;
+    private String getSaveFileName() {
+        return "savegame." + type.getFileEnding();
+    }
+
+    private String getInfoFileName() {
+        String cs = IntegrityManager.getInstance().getChecksum(ALL.inverseBidiMap().get(this));
+        return "info_" + cs + ".json";
+    }
+
+    public synchronized void invalidateSavegameInfo(SavegameEntry<T, I> e) {
+        if (Files.exists(getSavegameInfoFile(e))) {
+            logger.debug("Invalidating " + getSavegameInfoFile(e));
+            try {
+                Files.delete(getSavegameInfoFile(e));
+            } catch (Exception ex) {
+                ErrorHandler.handleException(ex);
             }
-        });
-        return Optional.ofNullable(resultToReturn[0]);
+        }
     }
 
-    private void addEntryToCollection(UUID campaignId, FailableConsumer<Path, Exception> writer, String checksum, I info, String sourceFileChecksum, String defaultCampaignName) {
+    private void addEntryToCollection(UUID campaignId, FailableConsumer<Path, Exception> writer, String checksum, String fastChecksum, I info, String sourceFileChecksum, String defaultCampaignName) {
         logger.debug("Campaign UUID is " + campaignId.toString());
 
         UUID saveUuid = UUID.randomUUID();
@@ -728,7 +1038,7 @@ public abstract class SavegameStorage<
             writer.accept(file);
             JsonHelper.writeObject(info, entryPath.resolve(getInfoFileName()));
 
-            addNewEntryToCampaign(campaignId, saveUuid, checksum, info, null, sourceFileChecksum, defaultCampaignName);
+            addNewEntryToCampaign(campaignId, saveUuid, checksum, fastChecksum, info, null, sourceFileChecksum, defaultCampaignName);
         } catch (Exception e) {
             ErrorHandler.handleException(e);
         }
@@ -741,10 +1051,12 @@ public abstract class SavegameStorage<
 
         byte[] bytes;
         String checksum;
+        String fastChecksum;
         boolean melted = false;
         try {
             bytes = Files.readAllBytes(getSavegameFile(e));
-            checksum = checksum(bytes);
+            checksum = ChecksumHelper.md5(bytes);
+            fastChecksum = ChecksumHelper.xxHash64(bytes);
             if (type.isBinary(bytes)) {
                 melted = true;
                 bytes = RakalyHelper.toEquivalentPlaintext(getSavegameFile(e));
@@ -787,14 +1099,16 @@ public abstract class SavegameStorage<
 
         var sourceName = getSavegameCampaign(e).getName();
         var newName = sourceName + " (" + PdxuI18n.get("NEW_BRANCH") + ")";
-        addEntryToCollection(targetId, writer, checksum, info, null, newName);
+        addEntryToCollection(targetId, writer, checksum, fastChecksum, info, null, newName);
         saveData();
     }
 
     public synchronized Optional<SavegameEntry<T, I>> getSavegameForChecksum(String cs) {
-        return getCollections().stream().flatMap(SavegameCampaign::entryStream)
-                .filter(ch -> ch.getContentChecksum() != null && ch.getContentChecksum().equals(cs))
-                .findAny();
+        return Optional.ofNullable(entriesByChecksum.get(cs)).map(l -> l.get(0));
+    }
+
+    public synchronized Optional<SavegameEntry<T, I>> getSavegameForFastChecksum(String cs) {
+        return Optional.ofNullable(entriesByFastChecksum.get(cs)).map(l -> l.get(0));
     }
 
     public synchronized String getEntryName(SavegameEntry<T, I> e) {
@@ -804,21 +1118,18 @@ public abstract class SavegameStorage<
     }
 
     public synchronized Optional<SavegameEntry<T,I>> getEntryForSourceFileChecksum(String sourceFileChecksum) {
-        return getCollections().stream().flatMap(SavegameCampaign::entryStream)
-                .filter(ch -> ch.getSourceFileChecksums().contains(sourceFileChecksum))
-                .findAny();
+        return Optional.ofNullable(entriesBySourceFileChecksum.get(sourceFileChecksum)).map(l -> l.get(0));
     }
 
     public synchronized boolean hasImportedSourceFile(String sourceFileChecksum) {
-        return getCollections().stream().flatMap(SavegameCampaign::entryStream)
-                .anyMatch(ch -> ch.getSourceFileChecksums().contains(sourceFileChecksum));
+        return entriesBySourceFileChecksum.containsKey(sourceFileChecksum);
     }
 
     public Path getSavegameDataDirectory() {
         return path;
     }
 
-    public Path getDataFile() {
+    private Path getLegacyDataFile() {
         return getSavegameDataDirectory().resolve("campaigns.json");
     }
 
@@ -0,0 +1,229 @@
+package com.crschnick.pdxu.app.savegame;
+
+import com.crschnick.pdxu.app.util.JsonHelper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the metadata of all campaigns of a storage, i.e. their names, dates and entries.
+ * <p>
+ * Changes are appended to a journal file. Once the journal has grown large enough,
+ * the current state is compacted into a snapshot file, which is written to a temporary file first
+ * and then moved over the old snapshot. Every record is checksummed, so a record that was only
+ * partially written because of a crash is discarded the next time the journal is opened.
+ * Loading the metadata therefore only requires reading these two files sequentially.
+ */
+final class SavegameStorageJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SavegameStorageJournal.class);
+    private static final ObjectWriter WRITER = JsonHelper.MAPPER.writer().without(SerializationFeature.INDENT_OUTPUT);
+
+    private static final int SNAPSHOT_MAGIC = 0x50445853;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    // Type, uuid and payload length
+    private static final int RECORD_HEADER_SIZE = 1 + 16 + 4;
+    private static final long MIN_COMPACTION_SIZE = 1_000_000;
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final Map<UUID, JsonNode> campaigns = new LinkedHashMap<>();
+    private FileChannel journal;
+    private long snapshotSize;
+
+    private SavegameStorageJournal(Path dir) {
+        this.snapshotFile = dir.resolve("metadata.snapshot");
+        this.journalFile = dir.resolve("metadata.journal");
+    }
+
+    static SavegameStorageJournal open(Path dir) throws IOException {
+        var j = new SavegameStorageJournal(dir);
+        j.readSnapshot();
+        j.readJournal();
+        return j;
+    }
+
+    /**
+     * @return whether a snapshot has ever been written, i.e. whether the journal has been compacted at least once
+     */
+    static boolean hasSnapshot(Path dir) {
+        return Files.exists(dir.resolve("metadata.snapshot"));
+    }
+
+    private void readSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+
+        var bytes = Files.readAllBytes(snapshotFile);
+        snapshotSize = bytes.length;
+        var crc = new CRC32();
+        crc.update(bytes, 0, Math.max(bytes.length - 4, 0));
+        var buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < 16 || buffer.getInt(bytes.length - 4) != (int) crc.getValue() ||
+                buffer.getInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Metadata snapshot " + snapshotFile + " is corrupt");
+        }
+
+        if (buffer.getInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Unsupported metadata snapshot version in " + snapshotFile);
+        }
+
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            var id = new UUID(buffer.getLong(), buffer.getLong());
+            var payload = new byte[buffer.getInt()];
+            buffer.get(payload);
+            campaigns.put(id, JsonHelper.MAPPER.readTree(payload));
+        }
+    }
+
+    private void readJournal() throws IOException {
+        var buffer = ByteBuffer.wrap(Files.exists(journalFile) ? Files.readAllBytes(journalFile) : new byte[0]);
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        int valid = 0;
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int start = buffer.position();
+            byte type = buffer.get();
+            var id = new UUID(buffer.getLong(), buffer.getLong());
+            int length = buffer.getInt();
+            if (length < 0 || buffer.remaining() < length + 4) {
+                break;
+            }
+
+            var crc = new CRC32();
+            crc.update(buffer.array(), start, RECORD_HEADER_SIZE + length);
+            var payload = new byte[length];
+            buffer.get(payload);
+            if (buffer.getInt() != (int) crc.getValue()) {
+                break;
+            }
+
+            if (type == PUT) {
+                campaigns.put(id, JsonHelper.MAPPER.readTree(payload));
+            } else if (type == REMOVE) {
+                campaigns.remove(id);
+            } else {
+                break;
+            }
+            valid = buffer.position();
+        }
+
+        // Drop an incomplete record at the end, so that new records are appended to a valid journal
+        if (valid < buffer.limit()) {
+            logger.warn("Discarding " + (buffer.limit() - valid) + " bytes of incomplete records in " + journalFile);
+            journal.truncate(valid);
+        }
+        journal.position(valid);
+    }
+
+    Map<UUID, JsonNode> getCampaigns() {
+        return Collections.unmodifiableMap(campaigns);
+    }
+
+    void put(UUID id, JsonNode campaign) throws IOException {
+        append(PUT, id, WRITER.writeValueAsBytes(campaign));
+        campaigns.put(id, campaign);
+    }
+
+    void remove(UUID id) throws IOException {
+        if (!campaigns.containsKey(id)) {
+            return;
+        }
+
+        append(REMOVE, id, new byte[0]);
+        campaigns.remove(id);
+    }
+
+    private void append(byte type, UUID id, byte[] payload) throws IOException {
+        var buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length + 4);
+        buffer.put(type);
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+        buffer.putInt(payload.length);
+        buffer.put(payload);
+        var crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+    }
+
+    /**
+     * Makes all appended records durable and compacts the journal if it has grown larger than the snapshot.
+     */
+    void sync() throws IOException {
+        journal.force(false);
+        if (journal.size() > Math.max(MIN_COMPACTION_SIZE, snapshotSize)) {
+            compact();
+        }
+    }
+
+    void compact() throws IOException {
+        List<byte[]> payloads = new ArrayList<>();
+        int size = 16;
+        for (var e : campaigns.values()) {
+            var payload = WRITER.writeValueAsBytes(e);
+            payloads.add(payload);
+            size += 16 + 4 + payload.length;
+        }
+
+        var buffer = ByteBuffer.allocate(size);
+        buffer.putInt(SNAPSHOT_MAGIC);
+        buffer.putInt(SNAPSHOT_VERSION);
+        buffer.putInt(campaigns.size());
+        int i = 0;
+        for (var id : campaigns.keySet()) {
+            var payload = payloads.get(i++);
+            buffer.putLong(id.getMostSignificantBits());
+            buffer.putLong(id.getLeastSignificantBits());
+            buffer.putInt(payload.length);
+            buffer.put(payload);
+        }
+        var crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        var tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (var out = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+
+        try {
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        snapshotSize = size;
+
+        // Replaying the old journal on top of the new snapshot results in the same state,
+        // so a crash before the journal is truncated does not lose anything
+        journal.truncate(0);
+        journal.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+}
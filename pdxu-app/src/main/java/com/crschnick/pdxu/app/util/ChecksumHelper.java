@@ -0,0 +1,49 @@
+package com.crschnick.pdxu.app.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class ChecksumHelper {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 missing!");
+        }
+    }
+
+    public static String md5(byte[] content) {
+        var d = md5();
+        d.update(content);
+        return HexFormat.of().formatHex(d.digest());
+    }
+
+    public static String xxHash64(byte[] content) {
+        return HexFormat.of().toHexDigits(XxHash64.hash(content));
+    }
+
+    /**
+     * Hashes the file while reading it in small blocks, without ever holding its contents on the heap.
+     */
+    public static String xxHash64(Path file) throws IOException {
+        var h = new XxHash64();
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                h.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().toHexDigits(h.getValue());
+    }
+}
@@ -111,14 +111,12 @@ public class ImageHelper {
     }
 
     public static BufferedImage fromFXImage(Image fxImage) {
-        BufferedImage img = new BufferedImage(
-                (int) fxImage.getWidth(), (int) fxImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
-        for (int x = 0; x < fxImage.getWidth(); x++) {
-            for (int y = 0; y < fxImage.getHeight(); y++) {
-                int rgb = fxImage.getPixelReader().getArgb(x, y);
-                img.setRGB(x, y, rgb);
-            }
-        }
+        int width = (int) fxImage.getWidth();
+        int height = (int) fxImage.getHeight();
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        var iArray = new int[width * height];
+        fxImage.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), iArray, 0, width);
+        img.setRGB(0, 0, width, height, iArray, 0, width);
         return img;
     }
 
@@ -133,18 +131,7 @@ public class ImageHelper {
             }
         }
 
-        BufferedImage swingImage = new BufferedImage(
-                (int) image.getWidth(),
-                (int) image.getHeight(),
-                BufferedImage.TYPE_INT_ARGB);
-
-        for (int x = 0; x < image.getWidth(); x++) {
-            for (int y = 0; y < image.getHeight(); y++) {
-                swingImage.setRGB(x, y, image.getPixelReader().getArgb(x, y));
-            }
-        }
-
-        ImageIO.write(swingImage, "png", out.toFile());
+        ImageIO.write(fromFXImage(image), "png", out.toFile());
     }
 
     public static void applyAlphaMask(BufferedImage awtImage, Image mask) {
@@ -0,0 +1,126 @@
+package com.crschnick.pdxu.app.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A streaming implementation of the non-cryptographic XXH64 hash function.
+ * It is many times faster than MD5, which makes it suitable for detecting duplicate files.
+ */
+public final class XxHash64 {
+
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    private final long seed;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    private long length;
+
+    // Input that does not fill a complete stripe of 32 bytes yet
+    private final ByteBuffer pending = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+
+    public XxHash64() {
+        this(0);
+    }
+
+    public XxHash64(long seed) {
+        this.seed = seed;
+        this.v1 = seed + P1 + P2;
+        this.v2 = seed + P2;
+        this.v3 = seed;
+        this.v4 = seed - P1;
+    }
+
+    public static long hash(byte[] bytes) {
+        var h = new XxHash64();
+        h.update(ByteBuffer.wrap(bytes));
+        return h.getValue();
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long merge(long acc, long v) {
+        acc ^= round(0, v);
+        return acc * P1 + P4;
+    }
+
+    private void stripe(ByteBuffer b) {
+        v1 = round(v1, b.getLong());
+        v2 = round(v2, b.getLong());
+        v3 = round(v3, b.getLong());
+        v4 = round(v4, b.getLong());
+    }
+
+    /**
+     * Hashes the remaining bytes of the buffer. The buffer is consumed, but its byte order is not changed.
+     */
+    public void update(ByteBuffer input) {
+        var in = input.slice().order(ByteOrder.LITTLE_ENDIAN);
+        input.position(input.limit());
+        length += in.remaining();
+
+        if (pending.position() > 0) {
+            int n = Math.min(pending.remaining(), in.remaining());
+            pending.put(pending.position(), in, in.position(), n);
+            pending.position(pending.position() + n);
+            in.position(in.position() + n);
+            if (pending.hasRemaining()) {
+                return;
+            }
+
+            pending.flip();
+            stripe(pending);
+            pending.clear();
+        }
+
+        while (in.remaining() >= 32) {
+            stripe(in);
+        }
+        pending.put(in);
+    }
+
+    public long getValue() {
+        long h;
+        if (length >= 32) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = merge(h, v1);
+            h = merge(h, v2);
+            h = merge(h, v3);
+            h = merge(h, v4);
+        } else {
+            h = seed + P5;
+        }
+        h += length;
+
+        var tail = pending.duplicate().flip().order(ByteOrder.LITTLE_ENDIAN);
+        while (tail.remaining() >= 8) {
+            h ^= round(0, tail.getLong());
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+        }
+        if (tail.remaining() >= 4) {
+            h ^= (tail.getInt() & 0xFFFFFFFFL) * P1;
+            h = Long.rotateLeft(h, 23) * P2 + P3;
+        }
+        while (tail.hasRemaining()) {
+            h ^= (tail.get() & 0xFFL) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+        }
+
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        return h;
+    }
+}
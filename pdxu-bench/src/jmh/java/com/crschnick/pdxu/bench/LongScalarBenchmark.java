@@ -0,0 +1,94 @@
+package com.crschnick.pdxu.bench;
+
+import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.parser.ParallelTextFormatTokenizer;
+import com.crschnick.pdxu.io.parser.ParseException;
+import com.crschnick.pdxu.io.parser.TextFormatParser;
+import com.crschnick.pdxu.io.parser.TextFormatTokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the tokenizer on generated gamestates with and without scalars that are too long for the inline length encoding,
+ * like the huge quoted strings that some mods embed. The variant without long scalars shows the common case,
+ * which should be unaffected by the overflow handling.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class LongScalarBenchmark {
+
+    private static final int LONG_SCALAR_SIZE = 100_000;
+
+    @Param({"EU4", "CK3", "VIC3", "STELLARIS"})
+    public SyntheticGamestate game;
+
+    @Param({"100"})
+    public int sizeMb;
+
+    @Param({"false", "true"})
+    public boolean longScalars;
+
+    private byte[] input;
+    private TextFormatParser parser;
+
+    @Setup(Level.Trial)
+    public void setup() throws ParseException {
+        var generated = game.generate(sizeMb * 1_000_000);
+        var out = new ByteArrayOutputStream(generated.length + sizeMb * (LONG_SCALAR_SIZE + 64));
+        out.writeBytes(generated);
+        if (longScalars) {
+            // One long scalar per megabyte, which is about a tenth of the input
+            var r = new Random(sizeMb);
+            for (int i = 0; i < sizeMb; i++) {
+                var text = new StringBuilder(LONG_SCALAR_SIZE);
+                while (text.length() < LONG_SCALAR_SIZE) {
+                    text.append((char) ('a' + r.nextInt(26)));
+                    if (r.nextInt(8) == 0) {
+                        text.append(' ');
+                    }
+                }
+                out.writeBytes(("\nmod_description_" + i + "=\"" + text + "\"").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        input = out.toByteArray();
+        parser = game.parser();
+
+        // Fail early if the long scalars are not accepted or the tokenizers disagree
+        var tokenizer = new TextFormatTokenizer(game.name(), input, 0, true);
+        tokenizer.tokenize();
+        TokenizerComparison.verifyEqual(tokenizer, ParallelTextFormatTokenizer.tokenize(game.name(), input, 0, true));
+        var node = parser.parse(game.name(), input, 0, true);
+        if (longScalars && node.getNodeForKey("mod_description_0").getString().length() != LONG_SCALAR_SIZE) {
+            throw new IllegalStateException("Long scalar was not parsed correctly");
+        }
+    }
+
+    @Benchmark
+    public TextFormatTokenizer tokenize(TextFormatBenchmark.Throughput t) throws ParseException {
+        var tokenizer = new TextFormatTokenizer(game.name(), input, 0, false);
+        tokenizer.tokenize();
+        t.add(input.length);
+        return tokenizer;
+    }
+
+    @Benchmark
+    public TextFormatTokenizer tokenizeParallel(TextFormatBenchmark.Throughput t) throws ParseException {
+        var tokenizer = ParallelTextFormatTokenizer.tokenize(game.name(), input, 0, false);
+        t.add(input.length);
+        return tokenizer;
+    }
+
+    @Benchmark
+    public ArrayNode parse(TextFormatBenchmark.Throughput t) throws ParseException {
+        var node = parser.parse(game.name(), input, 0, false);
+        t.add(input.length);
+        return node;
+    }
+}
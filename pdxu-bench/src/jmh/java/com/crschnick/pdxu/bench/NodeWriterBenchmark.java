@@ -0,0 +1,123 @@
+package com.crschnick.pdxu.bench;
+
+import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.NodeWriter;
+import com.crschnick.pdxu.io.node.NodeWriterImpl;
+import com.crschnick.pdxu.io.parser.ParseException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the stream based node writer with the buffered and the parallel writer,
+ * once with discarding targets to only measure the writers and once when writing to a file.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class NodeWriterBenchmark {
+
+    @Param({"EU4", "CK3", "VIC3", "STELLARIS"})
+    public SyntheticGamestate game;
+
+    @Param({"10", "100"})
+    public int sizeMb;
+
+    private ArrayNode node;
+    private Charset charset;
+    private int length;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, ParseException {
+        var input = game.generate(sizeMb * 1_000_000);
+        var parser = game.parser();
+        node = parser.parse(game.name(), input, 0, true);
+        charset = parser.getCharset();
+        length = input.length;
+        file = Files.createTempFile("pdxu-bench", ".txt");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void writeStream(TextFormatBenchmark.Throughput t) throws IOException {
+        writeWithStreamWriter(OutputStream.nullOutputStream());
+        t.add(length);
+    }
+
+    @Benchmark
+    public void writeBuffered(TextFormatBenchmark.Throughput t) throws IOException {
+        NodeWriter.write(OutputStream.nullOutputStream(), charset, node, "\t", 0);
+        t.add(length);
+    }
+
+    @Benchmark
+    public void writeParallel(TextFormatBenchmark.Throughput t) throws IOException {
+        NodeWriter.writeParallel(OutputStream.nullOutputStream(), charset, node, "\t", 0);
+        t.add(length);
+    }
+
+    @Benchmark
+    public void writeBufferedChannel(TextFormatBenchmark.Throughput t) throws IOException {
+        var channel = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                int r = src.remaining();
+                src.position(src.limit());
+                return r;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        NodeWriter.write(channel, charset, node, "\t", 0);
+        t.add(length);
+    }
+
+    @Benchmark
+    public void writeStreamFile(TextFormatBenchmark.Throughput t) throws IOException {
+        try (var out = Files.newOutputStream(file)) {
+            writeWithStreamWriter(out);
+        }
+        t.add(length);
+    }
+
+    @Benchmark
+    public void writeBufferedChannelFile(TextFormatBenchmark.Throughput t) throws IOException {
+        try (var out = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            NodeWriter.write(out, charset, node, "\t", 0);
+        }
+        t.add(length);
+    }
+
+    /**
+     * The previous implementation of {@link NodeWriter#write(OutputStream, Charset, ArrayNode, String, int)}.
+     */
+    private void writeWithStreamWriter(OutputStream out) throws IOException {
+        var bout = new BufferedOutputStream(out, 1000000);
+        node.writeTopLevel(new NodeWriterImpl(bout, charset, Integer.MAX_VALUE, "\t"));
+        bout.flush();
+    }
+}
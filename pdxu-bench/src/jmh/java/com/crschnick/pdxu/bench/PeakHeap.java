@@ -0,0 +1,38 @@
+package com.crschnick.pdxu.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+
+/**
+ * Reports the peak heap usage of an iteration above the usage after a full collection at its start,
+ * as the secondary metric {@code peakHeapMb}. Garbage that has not been collected yet is included,
+ * so this is an upper bound of the memory that an operation needs, which depends on the heap size.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class PeakHeap {
+
+    private static final List<MemoryPoolMXBean> POOLS = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(p -> p.getType() == MemoryType.HEAP)
+            .toList();
+
+    public double peakHeapMb;
+    private long base;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        System.gc();
+        base = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        POOLS.forEach(MemoryPoolMXBean::resetPeakUsage);
+        peakHeapMb = 0;
+    }
+
+    void update() {
+        long peak = POOLS.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+        peakHeapMb = Math.max(peakHeapMb, (peak - base) / 1_000_000.0);
+    }
+}
@@ -0,0 +1,589 @@
+package com.crschnick.pdxu.bench;
+
+import com.crschnick.pdxu.io.node.NodePointer;
+import com.crschnick.pdxu.io.parser.TextFormatParser;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates plaintext gamestates that resemble the structure of real savegames closely enough
+ * to exercise the same tokenizer and parser paths, without requiring a game installation.
+ * The output is deterministic for a given game and size.
+ */
+public enum SyntheticGamestate {
+
+    EU4 {
+        @Override
+        public TextFormatParser parser() {
+            return TextFormatParser.eu4();
+        }
+
+        @Override
+        protected void header(Out o) {
+            o.kv("date", "1650.3.2");
+            o.kv("save_game", "\"autosave.eu4\"");
+            o.kv("player", "\"FRA\"");
+            o.open("savegame_version");
+            o.kv("first", "1");
+            o.kv("second", "35");
+            o.kv("third", "3");
+            o.kv("forth", "0");
+            o.kv("name", "\"Lima\"");
+            o.close();
+            o.open("dlc_enabled");
+            o.line("\"Conquest of Paradise\"");
+            o.line("\"Art of War\"");
+            o.line("\"Rights of Man\"");
+            o.close();
+            o.line("map_area_data{");
+            o.in();
+            o.open("1");
+            o.open("state");
+            o.kv("area", "1");
+            o.close();
+            o.close();
+            o.out();
+            o.line("}");
+        }
+
+        @Override
+        protected void entity(Out o, Random r, int id) {
+            if (id % 3 == 0) {
+                o.open(String.valueOf(-id));
+                o.kv("name", o.quoted(r, NAMES));
+                o.kv("owner", o.quoted(tag(id / 7)));
+                o.kv("controller", o.quoted(tag(id / 7)));
+                o.open("cores");
+                o.line(o.quoted(tag(id / 7)));
+                o.close();
+                o.kv("culture", CULTURES[r.nextInt(CULTURES.length)]);
+                o.kv("religion", RELIGIONS[r.nextInt(RELIGIONS.length)]);
+                o.kv("base_tax", o.decimal(r, 1, 12, 3));
+                o.kv("base_production", o.decimal(r, 1, 12, 3));
+                o.kv("base_manpower", o.decimal(r, 1, 12, 3));
+                o.kv("trade_goods", "grain");
+                o.kv("center_of_trade", String.valueOf(r.nextInt(3)));
+                o.open("discovered_by");
+                for (int i = 0; i < 12; i++) {
+                    o.line(o.quoted(tag(r.nextInt(400))));
+                }
+                o.close();
+                o.open("history");
+                o.kv("base_tax", String.valueOf(r.nextInt(8) + 1));
+                for (int i = 0; i < 4; i++) {
+                    o.open(o.date(r, 1444, 1650));
+                    o.kv("owner", o.quoted(tag(r.nextInt(400))));
+                    o.close();
+                }
+                o.close();
+                o.inline("patrol", 1 + r.nextInt(3), r);
+                o.close();
+                return;
+            }
+
+            o.open(tag(id));
+            o.kv("human", r.nextInt(50) == 0 ? "yes" : "no");
+            o.kv("was_player", "no");
+            o.kv("government_rank", String.valueOf(r.nextInt(3) + 1));
+            o.kv("capital", String.valueOf(r.nextInt(4000)));
+            o.kv("treasury", o.decimal(r, -500, 5000, 3));
+            o.kv("estimated_monthly_income", o.decimal(r, 0, 80, 3));
+            o.kv("decision_seed", String.valueOf(r.nextInt(Integer.MAX_VALUE)));
+            o.open("technology");
+            o.kv("adm_tech", String.valueOf(r.nextInt(32)));
+            o.kv("dip_tech", String.valueOf(r.nextInt(32)));
+            o.kv("mil_tech", String.valueOf(r.nextInt(32)));
+            o.close();
+            o.open("colors");
+            o.inline("map_color", 3, r);
+            o.inline("country_color", 3, r);
+            o.close();
+            o.inline("owned_provinces", 4 + r.nextInt(40), r);
+            o.inline("core_provinces", 4 + r.nextInt(40), r);
+            o.open("active_idea_groups");
+            o.kv(IDEAS[r.nextInt(IDEAS.length)], String.valueOf(r.nextInt(8)));
+            o.kv(IDEAS[r.nextInt(IDEAS.length)], String.valueOf(r.nextInt(8)));
+            o.close();
+            o.open("history");
+            for (int i = 0; i < 3; i++) {
+                o.open(o.date(r, 1444, 1650));
+                o.open("monarch");
+                o.kv("name", o.quoted(r, NAMES));
+                o.kv("country", o.quoted(tag(id)));
+                o.kv("DIP", String.valueOf(r.nextInt(7)));
+                o.kv("ADM", String.valueOf(r.nextInt(7)));
+                o.kv("MIL", String.valueOf(r.nextInt(7)));
+                o.open("id");
+                o.kv("id", String.valueOf(r.nextInt(100000)));
+                o.kv("type", "48");
+                o.close();
+                o.kv("birth_date", o.date(r, 1400, 1640));
+                o.close();
+                o.close();
+            }
+            o.close();
+            o.close();
+        }
+
+        @Override
+        protected String section(int id) {
+            return id % 3 == 0 ? "provinces" : "countries";
+        }
+    },
+
+    CK3 {
+        @Override
+        public TextFormatParser parser() {
+            return TextFormatParser.ck3();
+        }
+
+        @Override
+        protected void header(Out o) {
+            o.open("meta_data");
+            o.kv("save_game_version", "3");
+            o.kv("version", "\"1.11.3\"");
+            o.kv("meta_date", "1066.9.15");
+            o.kv("meta_player_name", "\"Duke Harold\"");
+            o.kv("meta_title_name", "\"Duchy of Wessex\"");
+            o.close();
+            o.kv("date", "1066.9.15");
+            o.kv("random_seed", "1283718923");
+        }
+
+        @Override
+        protected void entity(Out o, Random r, int id) {
+            if (id % 5 == 0) {
+                o.open(String.valueOf(id));
+                o.kv("pattern", "\"pattern_solid.dds\"");
+                o.kv("color1", "rgb { " + r.nextInt(256) + " " + r.nextInt(256) + " " + r.nextInt(256) + " }");
+                o.kv("color2", "rgb { " + r.nextInt(256) + " " + r.nextInt(256) + " " + r.nextInt(256) + " }");
+                o.open("colored_emblem");
+                o.kv("texture", "\"ce_lion_passant.dds\"");
+                o.kv("color1", "rgb { 255 210 0 }");
+                o.open("instance");
+                o.kv("position", "{ " + o.decimal(r, 0, 1, 3) + " " + o.decimal(r, 0, 1, 3) + " }");
+                o.kv("scale", "{ " + o.decimal(r, 0, 1, 3) + " " + o.decimal(r, 0, 1, 3) + " }");
+                o.close();
+                o.close();
+                o.close();
+                return;
+            }
+
+            o.open(String.valueOf(id));
+            o.kv("first_name", o.quoted(r, NAMES));
+            o.kv("birth", o.date(r, 900, 1066));
+            o.kv("culture", String.valueOf(r.nextInt(500)));
+            o.kv("faith", String.valueOf(r.nextInt(200)));
+            o.kv("dynasty_house", String.valueOf(r.nextInt(30000)));
+            o.inline("skill", 6, r);
+            o.inline("traits", 2 + r.nextInt(6), r);
+            o.kv("weight", String.valueOf(r.nextInt(100)));
+            o.open("family_data");
+            o.kv("primary_spouse", String.valueOf(r.nextInt(1_000_000)));
+            o.inline("child", r.nextInt(5), r);
+            o.close();
+            o.open("alive_data");
+            o.kv("gold", o.decimal(r, 0, 2000, 3));
+            o.kv("health", o.decimal(r, 0, 8, 3));
+            o.kv("fertility", o.decimal(r, 0, 1, 3));
+            o.open("piety");
+            o.kv("currency", o.decimal(r, 0, 3000, 3));
+            o.kv("accumulated", o.decimal(r, 0, 9000, 3));
+            o.close();
+            o.open("prestige");
+            o.kv("currency", o.decimal(r, 0, 3000, 3));
+            o.kv("accumulated", o.decimal(r, 0, 9000, 3));
+            o.close();
+            o.open("variables");
+            o.open("data");
+            o.open("");
+            o.kv("flag", "num_hooks");
+            o.kv("tick", "0");
+            o.open("data");
+            o.kv("type", "value");
+            o.kv("identity", String.valueOf(r.nextInt(8)));
+            o.close();
+            o.close();
+            o.close();
+            o.close();
+            o.close();
+            o.close();
+        }
+
+        @Override
+        protected String section(int id) {
+            return id % 5 == 0 ? "coat_of_arms" : "living";
+        }
+    },
+
+    VIC3 {
+        @Override
+        public TextFormatParser parser() {
+            return TextFormatParser.vic3();
+        }
+
+        @Override
+        protected void header(Out o) {
+            o.open("meta_data");
+            o.kv("save_game_version", "2");
+            o.kv("version", "\"1.5.12\"");
+            o.kv("game_date", "1886.4.1");
+            o.kv("name", "\"GBR\"");
+            o.close();
+            o.kv("playthrough_id", "\"a7d93c3f-2b63-4b1f-8e7f-1e3c9f2c3f12\"");
+            o.kv("date", "1886.4.1");
+        }
+
+        @Override
+        protected void entity(Out o, Random r, int id) {
+            if (id % 4 == 0) {
+                o.open(String.valueOf(id));
+                o.kv("definition", o.quoted(tag(id / 4)));
+                o.kv("government", "\"gov_parliamentary_republic\"");
+                o.kv("map_color", "hsv{ " + o.decimal(r, 0, 1, 2) + " " + o.decimal(r, 0, 1, 2) + " " + o.decimal(r, 0, 1, 2) + " }");
+                o.kv("capital", String.valueOf(r.nextInt(800)));
+                o.open("budget");
+                o.kv("money", o.decimal(r, 0, 1_000_000, 5));
+                o.kv("weekly_income", o.decimal(r, 0, 100_000, 5));
+                o.open("tax_levels");
+                o.kv("income_tax", "medium");
+                o.kv("consumption_tax", "low");
+                o.close();
+                o.close();
+                o.open("gdp");
+                o.open("channels");
+                o.open("0");
+                o.kv("date", o.date(r, 1836, 1886));
+                o.kv("index", String.valueOf(r.nextInt(32)));
+                o.open("values");
+                for (int i = 0; i < 12; i++) {
+                    o.line(o.decimal(r, 0, 10_000_000, 5));
+                }
+                o.close();
+                o.close();
+                o.close();
+                o.close();
+                o.kv("ruler", String.valueOf(r.nextInt(200_000)));
+                o.kv("heir", "none");
+                o.open("techs");
+                o.close();
+                o.close();
+                return;
+            }
+
+            o.open(String.valueOf(id));
+            o.kv("type", POP_TYPES[r.nextInt(POP_TYPES.length)]);
+            o.kv("location", String.valueOf(r.nextInt(800)));
+            o.kv("culture", String.valueOf(r.nextInt(250)));
+            o.kv("religion", RELIGIONS[r.nextInt(RELIGIONS.length)]);
+            o.kv("size_wa", String.valueOf(r.nextInt(200_000)));
+            o.kv("size_dn", String.valueOf(r.nextInt(200_000)));
+            o.kv("workforce", String.valueOf(r.nextInt(100_000)));
+            o.kv("dependents", String.valueOf(r.nextInt(100_000)));
+            o.kv("wealth", String.valueOf(r.nextInt(99)));
+            o.kv("loyalists_and_radicals", String.valueOf(r.nextInt(2000) - 1000));
+            o.open("budget");
+            o.kv("weekly_expenses", o.decimal(r, 0, 10_000, 5));
+            o.kv("weekly_income", o.decimal(r, 0, 10_000, 5));
+            o.close();
+            o.close();
+        }
+
+        @Override
+        protected String section(int id) {
+            return id % 4 == 0 ? "country_manager" : "pops";
+        }
+
+        @Override
+        protected boolean hasDatabase() {
+            return true;
+        }
+    },
+
+    STELLARIS {
+        @Override
+        public TextFormatParser parser() {
+            return TextFormatParser.stellaris();
+        }
+
+        @Override
+        protected void header(Out o) {
+            o.kv("version", "\"Andromeda v3.12.4\"");
+            o.kv("version_control_revision", "93812");
+            o.kv("name", "\"United Nations of Earth\"");
+            o.kv("date", "\"2310.03.21\"");
+            o.open("player");
+            o.open("");
+            o.kv("name", "\"unknown\"");
+            o.kv("country", "0");
+            o.close();
+            o.close();
+        }
+
+        @Override
+        protected void entity(Out o, Random r, int id) {
+            if (id % 6 == 0) {
+                o.open(String.valueOf(id / 6));
+                o.open("name");
+                o.kv("key", "\"EMPIRE_DESIGN_humans1\"");
+                o.close();
+                o.open("flag");
+                o.open("icon");
+                o.kv("category", "\"human\"");
+                o.kv("file", "\"flag_human_9.dds\"");
+                o.close();
+                o.open("colors");
+                o.line("\"dark_blue\"");
+                o.line("\"blue\"");
+                o.line("\"null\"");
+                o.line("\"null\"");
+                o.close();
+                o.close();
+                o.kv("military_power", o.decimal(r, 0, 100_000, 3));
+                o.kv("economy_power", o.decimal(r, 0, 10_000, 3));
+                o.kv("tech_power", o.decimal(r, 0, 1_000, 3));
+                o.open("modules");
+                o.open("standard_economy_module");
+                o.open("resources");
+                o.kv("energy", o.decimal(r, 0, 50_000, 3));
+                o.kv("minerals", o.decimal(r, 0, 50_000, 3));
+                o.kv("food", o.decimal(r, 0, 50_000, 3));
+                o.kv("influence", o.decimal(r, 0, 1_000, 3));
+                o.kv("unity", o.decimal(r, 0, 100_000, 3));
+                o.close();
+                o.close();
+                o.close();
+                o.inline("owned_planets", 1 + r.nextInt(30), r);
+                o.inline("controlled_planets", 1 + r.nextInt(30), r);
+                o.close();
+                return;
+            }
+
+            o.open(String.valueOf(id));
+            o.open("name");
+            o.kv("key", o.quoted(r, NAMES));
+            o.close();
+            o.kv("planet_class", "\"pc_continental\"");
+            o.open("coordinate");
+            o.kv("x", o.decimal(r, -500, 500, 3));
+            o.kv("y", o.decimal(r, -500, 500, 3));
+            o.kv("origin", String.valueOf(r.nextInt(1000)));
+            o.kv("randomized", "yes");
+            o.close();
+            o.kv("orbit", String.valueOf(r.nextInt(100)));
+            o.kv("planet_size", String.valueOf(r.nextInt(30)));
+            o.kv("owner", String.valueOf(r.nextInt(60)));
+            o.inline("pop", r.nextInt(40), r);
+            o.inline("buildings_cache", r.nextInt(12), r);
+            o.open("flags");
+            o.kv("planet_surveyed", String.valueOf(r.nextInt(100_000_000)));
+            o.close();
+            o.kv("stability", o.decimal(r, 0, 100, 3));
+            o.kv("crime", o.decimal(r, 0, 100, 3));
+            o.close();
+        }
+
+        @Override
+        protected String section(int id) {
+            return id % 6 == 0 ? "country" : "planets";
+        }
+    };
+
+    private static final String[] NAMES = {
+            "Louis", "Harold", "Bärbel", "Æthelred", "Sigurd", "Isabella", "Jean-Baptiste", "Ottokar", "Ramiro",
+            "Kujtim", "Stockholm", "Zaragoza", "Québec", "Lübeck", "Kraków"
+    };
+    private static final String[] CULTURES = {"swedish", "danish", "cosmopolitan_french", "castilian", "english", "bavarian"};
+    private static final String[] RELIGIONS = {"catholic", "protestant", "orthodox", "sunni", "shiite", "hindu"};
+    private static final String[] IDEAS = {"quantity_ideas", "trade_ideas", "offensive_ideas", "economic_ideas", "exploration_ideas"};
+    private static final String[] POP_TYPES = {"\"peasants\"", "\"laborers\"", "\"farmers\"", "\"clerks\"", "\"machinists\"", "\"aristocrats\""};
+
+    private static String tag(int id) {
+        char[] c = new char[3];
+        for (int i = 2; i >= 0; i--) {
+            c[i] = (char) ('A' + (id % 26));
+            id /= 26;
+        }
+        return new String(c);
+    }
+
+    public abstract TextFormatParser parser();
+
+    protected abstract void header(Out o);
+
+    protected abstract void entity(Out o, Random r, int id);
+
+    protected abstract String section(int id);
+
+    protected boolean hasDatabase() {
+        return false;
+    }
+
+    /**
+     * Pointers to the date and the first value of every entity in the larger section,
+     * which is similar to the values that are needed to create a savegame info.
+     */
+    public List<NodePointer> infoProjection() {
+        var entities = NodePointer.builder().name(section(1));
+        if (hasDatabase()) {
+            entities.name("database");
+        }
+        return List.of(
+                NodePointer.builder().name("date").build(),
+                entities.wildcard().index(0).build());
+    }
+
+    public Charset charset() {
+        return parser().getCharset();
+    }
+
+    /**
+     * Generates a gamestate of approximately the specified size.
+     * Entities are grouped into large top level sections like in real savegames.
+     */
+    public byte[] generate(int targetBytes) {
+        var r = new Random(targetBytes * 31L + ordinal());
+        var o = new Out(charset(), targetBytes + 64 * 1024);
+        header(o);
+
+        // Write interleaved ids into two separate buffers to get two big top level sections
+        var first = new Out(charset(), targetBytes / 2 + 64 * 1024);
+        var second = new Out(charset(), targetBytes / 2 + 64 * 1024);
+        first.in();
+        second.in();
+        if (hasDatabase()) {
+            first.in();
+            second.in();
+        }
+
+        int id = 1;
+        while (o.size() + first.size() + second.size() < targetBytes) {
+            var target = section(id).equals(section(1)) ? first : second;
+            entity(target, r, id);
+            id++;
+        }
+
+        int secondId = 2;
+        while (section(secondId).equals(section(1))) {
+            secondId++;
+        }
+        writeSection(o, section(1), first);
+        writeSection(o, section(secondId), second);
+        return o.toByteArray();
+    }
+
+    private void writeSection(Out o, String name, Out content) {
+        o.open(name);
+        if (hasDatabase()) {
+            o.open("database");
+        }
+        o.append(content);
+        if (hasDatabase()) {
+            o.close();
+        }
+        o.close();
+    }
+
+    protected static final class Out {
+
+        private final Charset charset;
+        private byte[] bytes;
+        private int size;
+        private int indent;
+
+        private Out(Charset charset, int initialSize) {
+            this.charset = charset;
+            this.bytes = new byte[initialSize];
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+            }
+        }
+
+        private void write(String s) {
+            var b = s.getBytes(charset);
+            ensureCapacity(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        private void append(Out other) {
+            ensureCapacity(other.size);
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+
+        private void indent() {
+            ensureCapacity(indent);
+            Arrays.fill(bytes, size, size + indent, (byte) '\t');
+            size += indent;
+        }
+
+        void in() {
+            indent++;
+        }
+
+        void out() {
+            indent--;
+        }
+
+        void line(String s) {
+            indent();
+            write(s);
+            write("\n");
+        }
+
+        void kv(String key, String value) {
+            line(key + "=" + value);
+        }
+
+        void open(String key) {
+            line(key.isEmpty() ? "{" : key + "={");
+            in();
+        }
+
+        void close() {
+            out();
+            line("}");
+        }
+
+        void inline(String key, int count, Random r) {
+            var sb = new StringBuilder(key).append("={ ");
+            for (int i = 0; i < count; i++) {
+                sb.append(r.nextInt(10_000)).append(' ');
+            }
+            line(sb.append('}').toString());
+        }
+
+        String quoted(String s) {
+            return "\"" + s + "\"";
+        }
+
+        String quoted(Random r, String[] values) {
+            return quoted(values[r.nextInt(values.length)]);
+        }
+
+        String decimal(Random r, int min, int max, int digits) {
+            var v = min + r.nextDouble() * (max - min);
+            return String.format(Locale.ROOT, "%." + digits + "f", v);
+        }
+
+        String date(Random r, int minYear, int maxYear) {
+            return (minYear + r.nextInt(maxYear - minYear)) + "." + (1 + r.nextInt(12)) + "." + (1 + r.nextInt(28));
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.crschnick.pdxu.bench;
+
+import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.TaggedNode;
+import com.crschnick.pdxu.io.parser.ParallelTextFormatTokenizer;
+import com.crschnick.pdxu.io.parser.ParseException;
+import com.crschnick.pdxu.io.parser.TextFormatHandler;
+import com.crschnick.pdxu.io.parser.TextFormatParser;
+import com.crschnick.pdxu.io.parser.TextFormatTokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the tokenizer and the node creation of the text format parser separately,
+ * as well as the full parse. Throughput in MB/s is reported as the secondary metric {@code megabytes},
+ * allocation rates are reported by the gc profiler that is enabled in the build file.
+ * The tokenizer and parse benchmarks also report their peak heap usage, see {@link PeakHeap}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class TextFormatBenchmark {
+
+    @Param({"EU4", "CK3", "VIC3", "STELLARIS"})
+    public SyntheticGamestate game;
+
+    @Param({"10", "100", "300"})
+    public int sizeMb;
+
+    private byte[] input;
+    private TextFormatParser parser;
+    private TextFormatTokenizer tokenized;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, ParseException {
+        input = game.generate(sizeMb * 1_000_000);
+        parser = game.parser();
+
+        // Fail early if the generated data is not accepted by the parser
+        tokenized = new TextFormatTokenizer(game.name(), input, 0, true);
+        tokenized.tokenize();
+        parser.parse(game.name(), input, tokenized, true);
+
+        // Both tokenizer modes have to produce exactly the same tokens
+        var bytewise = new TextFormatTokenizer(game.name(), input, 0, true, false);
+        bytewise.tokenize();
+        TokenizerComparison.verifyEqual(tokenized, bytewise);
+        TokenizerComparison.verifyEqual(tokenized, ParallelTextFormatTokenizer.tokenize(game.name(), input, 0, true));
+        parser.parse(game.name(), new ByteArrayInputStream(input), true);
+    }
+
+    @Benchmark
+    public TextFormatTokenizer tokenize(Throughput t, PeakHeap h) throws ParseException {
+        var tokenizer = new TextFormatTokenizer(game.name(), input, 0, false);
+        tokenizer.tokenize();
+        t.add(input.length);
+        h.update();
+        return tokenizer;
+    }
+
+    @Benchmark
+    public TextFormatTokenizer tokenizeBytewise(Throughput t) throws ParseException {
+        var tokenizer = new TextFormatTokenizer(game.name(), input, 0, false, false);
+        tokenizer.tokenize();
+        t.add(input.length);
+        return tokenizer;
+    }
+
+    @Benchmark
+    public TextFormatTokenizer tokenizeParallel(Throughput t) throws ParseException {
+        var tokenizer = ParallelTextFormatTokenizer.tokenize(game.name(), input, 0, false);
+        t.add(input.length);
+        return tokenizer;
+    }
+
+    @Benchmark
+    public TextFormatTokenizer tokenizeStream(Throughput t) throws ParseException {
+        var tokenizer = new TextFormatTokenizer(game.name(), new ByteArrayInputStream(input), false);
+        tokenizer.tokenize();
+        t.add(input.length);
+        return tokenizer;
+    }
+
+    @Benchmark
+    public ArrayNode buildNodes(Throughput t) throws ParseException {
+        var node = parser.parse(game.name(), input, tokenized, false);
+        t.add(input.length);
+        return node;
+    }
+
+    @Benchmark
+    public ArrayNode parse(Throughput t, PeakHeap h) throws ParseException {
+        var node = parser.parse(game.name(), input, 0, false);
+        t.add(input.length);
+        h.update();
+        return node;
+    }
+
+    @Benchmark
+    public ArrayNode parseStream(Throughput t, PeakHeap h) throws IOException, ParseException {
+        var node = parser.parse(game.name(), new ByteArrayInputStream(input), false);
+        t.add(input.length);
+        h.update();
+        return node;
+    }
+
+    @Benchmark
+    public ArrayNode parseLazily(Throughput t) throws ParseException {
+        var node = parser.parseLazily(game.name(), input, 0, false, false);
+        t.add(input.length);
+        return node;
+    }
+
+    @Benchmark
+    public ArrayNode parseProjection(Throughput t) throws ParseException {
+        var node = parser.parse(game.name(), input, 0, false, game.infoProjection());
+        t.add(input.length);
+        return node;
+    }
+
+    /**
+     * Only looks at the top level entries, which is the best case for skipping subtrees.
+     */
+    @Benchmark
+    public int scanTopLevel(Throughput t) throws ParseException {
+        var handler = new TextFormatHandler() {
+
+            int depth;
+            int entries;
+
+            @Override
+            public boolean startArray(int keyIndex, int size) {
+                entries++;
+                if (depth > 0) {
+                    return false;
+                }
+
+                depth++;
+                return true;
+            }
+
+            @Override
+            public void endArray() {
+                depth--;
+            }
+
+            @Override
+            public void scalar(int keyIndex, int valueIndex) {
+                entries++;
+            }
+
+            @Override
+            public void tagged(int keyIndex, TaggedNode.TagType type, int valuesBegin, int valuesCount) {
+                entries++;
+            }
+        };
+        parser.parse(game.name(), input, 0, false, handler);
+        t.add(input.length);
+        return handler.entries;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+
+        void add(int bytes) {
+            megabytes += bytes / 1_000_000.0;
+        }
+    }
+}
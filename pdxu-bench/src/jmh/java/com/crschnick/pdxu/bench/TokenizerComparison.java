@@ -0,0 +1,47 @@
+package com.crschnick.pdxu.bench;
+
+import com.crschnick.pdxu.io.parser.TextFormatTokenizer;
+
+import java.util.Arrays;
+
+/**
+ * Differential check between two tokenizer runs over the same input.
+ * Used to make sure that alternative tokenizer implementations stay exactly compatible.
+ */
+public final class TokenizerComparison {
+
+    public static void verifyEqual(TextFormatTokenizer expected, TextFormatTokenizer actual) {
+        if (expected.getScalarCount() != actual.getScalarCount()) {
+            throw new IllegalStateException("Scalar count differs: " + expected.getScalarCount() + " != " + actual.getScalarCount());
+        }
+
+        int scalars = expected.getScalarCount();
+        check("scalar starts", Arrays.mismatch(
+                expected.getScalarsStart(), 0, scalars, actual.getScalarsStart(), 0, scalars));
+        for (int i = 0; i < scalars; i++) {
+            if (expected.getScalarLength(i) != actual.getScalarLength(i)) {
+                check("scalar lengths", i);
+            }
+        }
+        if (expected.getTokenCount() != actual.getTokenCount()) {
+            throw new IllegalStateException("Token count differs: " + expected.getTokenCount() + " != " + actual.getTokenCount());
+        }
+        if (expected.getArrayCount() != actual.getArrayCount()) {
+            throw new IllegalStateException("Array count differs: " + expected.getArrayCount() + " != " + actual.getArrayCount());
+        }
+
+        // Include the final close group token
+        int tokens = expected.getTokenCount() + 1;
+        check("token types", Arrays.mismatch(
+                expected.getTokenTypes(), 0, tokens, actual.getTokenTypes(), 0, tokens));
+        int arrays = expected.getArrayCount();
+        check("array sizes", Arrays.mismatch(
+                expected.getArraySizes(), 0, arrays, actual.getArraySizes(), 0, arrays));
+    }
+
+    private static void check(String name, int mismatch) {
+        if (mismatch != -1) {
+            throw new IllegalStateException("Tokenizer " + name + " differ at index " + mismatch);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.crschnick.pdxu.io.node;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A node writer that encodes into a reusable buffer and hands it to the target in large chunks.
+ * Control tokens and indentation levels are encoded once per writer, and ASCII strings are copied without encoding them.
+ * <p>
+ * Buffers are taken from a small shared pool and returned to it when the writer is closed.
+ * Closing the writer does not close the target.
+ */
+public final class BufferedNodeWriter implements NodeWriter, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final ArrayBlockingQueue<ByteBuffer> HEAP_BUFFERS = new ArrayBlockingQueue<>(
+            Math.max(4, Runtime.getRuntime().availableProcessors()));
+    private static final ArrayBlockingQueue<ByteBuffer> DIRECT_BUFFERS = new ArrayBlockingQueue<>(4);
+    private static final String ASCII;
+
+    static {
+        var sb = new StringBuilder("\t\n");
+        for (char c = 0x20; c < 0x7F; c++) {
+            sb.append(c);
+        }
+        ASCII = sb.toString();
+    }
+
+    private interface Target {
+
+        void write(ByteBuffer buffer) throws IOException;
+    }
+
+    private final Target target;
+    private final Charset charset;
+    private final boolean asciiCompatible;
+    private final int maxLines;
+    private final byte[] indentValue;
+    private final byte[] space;
+    private final byte[] newLine;
+    private byte[][] indents = new byte[16][];
+    private ByteBuffer buffer;
+    private int currentLines;
+    private boolean hitMaxLines;
+    private int indent;
+
+    private BufferedNodeWriter(Target target, boolean direct, Charset charset, int maxLines, String indentValue) {
+        this.target = target;
+        this.charset = charset;
+        this.asciiCompatible = Arrays.equals(ASCII.getBytes(charset), ASCII.getBytes(StandardCharsets.US_ASCII));
+        this.maxLines = maxLines;
+        this.indentValue = indentValue.getBytes();
+        this.space = " ".getBytes(charset);
+        this.newLine = "\n".getBytes();
+        this.buffer = acquire(direct);
+    }
+
+    /**
+     * Uses a heap buffer, so that the stream can read from its array directly.
+     */
+    public static BufferedNodeWriter create(OutputStream out, Charset charset, int maxLines, String indentValue) {
+        return new BufferedNodeWriter(b -> {
+            out.write(b.array(), b.arrayOffset() + b.position(), b.remaining());
+            b.position(b.limit());
+        }, false, charset, maxLines, indentValue);
+    }
+
+    /**
+     * Uses a direct buffer, which avoids an additional copy for channels like {@link java.nio.channels.FileChannel}.
+     */
+    public static BufferedNodeWriter create(WritableByteChannel channel, Charset charset, int maxLines, String indentValue) {
+        return new BufferedNodeWriter(b -> {
+            while (b.hasRemaining()) {
+                channel.write(b);
+            }
+        }, true, charset, maxLines, indentValue);
+    }
+
+    private static ByteBuffer acquire(boolean direct) {
+        var b = (direct ? DIRECT_BUFFERS : HEAP_BUFFERS).poll();
+        if (b != null) {
+            return b.clear();
+        }
+        return direct ? ByteBuffer.allocateDirect(BUFFER_SIZE) : ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    private void put(byte[] b, int offset, int length) throws IOException {
+        if (buffer.remaining() < length) {
+            flushBuffer();
+            if (length > buffer.capacity()) {
+                target.write(ByteBuffer.wrap(b, offset, length));
+                return;
+            }
+        }
+        buffer.put(b, offset, length);
+    }
+
+    private void put(byte[] b) throws IOException {
+        put(b, 0, b.length);
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        target.write(buffer);
+        buffer.clear();
+    }
+
+    public void flush() throws IOException {
+        if (buffer.position() > 0) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Writes all remaining data and returns the buffer to the pool.
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+
+        try {
+            flush();
+        } finally {
+            (buffer.isDirect() ? DIRECT_BUFFERS : HEAP_BUFFERS).offer(buffer);
+            buffer = null;
+        }
+    }
+
+    @Override
+    public void incrementIndent() {
+        indent++;
+    }
+
+    @Override
+    public void decrementIndent() {
+        indent--;
+    }
+
+    @Override
+    public void indent() throws IOException {
+        if (hitMaxLines || indent <= 0) {
+            return;
+        }
+
+        if (indent >= indents.length) {
+            indents = Arrays.copyOf(indents, indent * 2);
+        }
+        if (indents[indent] == null) {
+            var b = new byte[indentValue.length * indent];
+            for (int i = 0; i < indent; i++) {
+                System.arraycopy(indentValue, 0, b, i * indentValue.length, indentValue.length);
+            }
+            indents[indent] = b;
+        }
+        put(indents[indent]);
+    }
+
+    @Override
+    public void write(NodeContext ctx, int index) throws IOException {
+        if (hitMaxLines) {
+            return;
+        }
+
+        if (ctx.getCharset().equals(charset)) {
+            put(ctx.getData(), ctx.getLiteralsBegin()[index], ctx.getLiteralLength(index));
+        } else {
+            put(ctx.evaluateRaw(index).getBytes(charset));
+        }
+    }
+
+    @Override
+    public void write(String s) throws IOException {
+        if (hitMaxLines) {
+            return;
+        }
+
+        int length = s.length();
+        if (!asciiCompatible || length > buffer.capacity()) {
+            put(s.getBytes(charset));
+            return;
+        }
+
+        if (buffer.remaining() < length) {
+            flushBuffer();
+        }
+        int start = buffer.position();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                // Not ASCII, so encode the whole string instead
+                buffer.position(start);
+                put(s.getBytes(charset));
+                return;
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    @Override
+    public void space() throws IOException {
+        if (hitMaxLines) {
+            return;
+        }
+
+        put(space);
+    }
+
+    @Override
+    public void newLine() throws IOException {
+        if (hitMaxLines) {
+            return;
+        }
+
+        put(newLine);
+
+        currentLines++;
+        if (currentLines >= maxLines) {
+            hitMaxLines = true;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.crschnick.pdxu.io.node;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * An array node that only stores where its contents are located in the parsed input.
+ * The contents are parsed when they are accessed for the first time.
+ */
+public final class LazyArrayNode extends ArrayNode {
+
+    public interface Loader {
+
+        ArrayNode load(int tokenIndex, int scalarIndex, int arrayIndex, int size);
+    }
+
+    private final Loader loader;
+    private final int tokenIndex;
+    private final int scalarIndex;
+    private final int arrayIndex;
+    private final int size;
+    private volatile ArrayNode loaded;
+
+    public LazyArrayNode(Loader loader, int tokenIndex, int scalarIndex, int arrayIndex, int size) {
+        this.loader = loader;
+        this.tokenIndex = tokenIndex;
+        this.scalarIndex = scalarIndex;
+        this.arrayIndex = arrayIndex;
+        this.size = size;
+    }
+
+    private ArrayNode get() {
+        var l = loaded;
+        if (l == null) {
+            synchronized (this) {
+                l = loaded;
+                if (l == null) {
+                    l = loader.load(tokenIndex, scalarIndex, arrayIndex, size);
+                    loaded = l;
+                }
+            }
+        }
+        return l;
+    }
+
+    public boolean isLoaded() {
+        return loaded != null;
+    }
+
+    @Override
+    public String toString() {
+        return get().toString();
+    }
+
+    @Override
+    public Descriptor describe() {
+        return get().describe();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Node> c, boolean includeNullKeys) {
+        get().forEach(c, includeNullKeys);
+    }
+
+    @Override
+    public boolean forEach(BiPredicate<String, Node> c, boolean includeNullKeys) {
+        return get().forEach(c, includeNullKeys);
+    }
+
+    @Override
+    public int size() {
+        return get().size();
+    }
+
+    @Override
+    public boolean isKeyAt(String key, int index) {
+        return get().isKeyAt(key, index);
+    }
+
+    @Override
+    public ArrayNode splice(int begin, int length) {
+        return get().splice(begin, length);
+    }
+
+    @Override
+    protected void writeInternal(NodeWriter writer) throws IOException {
+        get().writeInternal(writer);
+    }
+
+    @Override
+    protected void writeFlatInternal(NodeWriter writer) throws IOException {
+        get().writeFlatInternal(writer);
+    }
+
+    @Override
+    protected boolean isFlat() {
+        return get().isFlat();
+    }
+
+    @Override
+    public String getKeyAt(int index) {
+        return get().getKeyAt(index);
+    }
+
+    @Override
+    public List<Node> getNodeArray() {
+        return get().getNodeArray();
+    }
+
+    @Override
+    public boolean matches(NodeMatcher matcher) {
+        return get().matches(matcher);
+    }
+
+    @Override
+    public boolean hasKey(String key) {
+        return get().hasKey(key);
+    }
+
+    @Override
+    public Node getNodeForKey(String key) {
+        return get().getNodeForKey(key);
+    }
+
+    @Override
+    public Optional<Node> getNodeForKeyIfExistent(String key) {
+        return get().getNodeForKeyIfExistent(key);
+    }
+
+    @Override
+    public List<Node> getNodesForKey(String key) {
+        return get().getNodesForKey(key);
+    }
+
+    @Override
+    public Node copy() {
+        return get().copy();
+    }
+}
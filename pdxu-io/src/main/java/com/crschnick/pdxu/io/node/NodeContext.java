@@ -5,17 +5,31 @@ import java.nio.charset.StandardCharsets;
 
 public final class NodeContext {
 
+    private static final byte DOUBLE_QUOTE_CHAR = 34;
+    private static final long NOT_PARSED = Long.MIN_VALUE;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final Node.ValueType[] VALUE_TYPES = Node.ValueType.values();
+
     private final byte[] data;
     private final Charset charset;
     private final int[] literalsBegin;
     private final short[] literalsLength;
+    private final int[] longLiteralsLength;
     private final int literalsCount;
 
+    // Cached value type ordinal + 1 per literal, created on the first classification
+    private byte[] valueTypes;
+    private volatile SymbolTable symbols;
+
     public NodeContext() {
         this.data = null;
         this.charset = StandardCharsets.UTF_8;
         this.literalsBegin = null;
         this.literalsLength = null;
+        this.longLiteralsLength = null;
         this.literalsCount = 0;
     }
 
@@ -24,15 +38,31 @@ public final class NodeContext {
                 StringValues.escapeStringContent(data).getBytes();
         this.charset = StandardCharsets.UTF_8;
         this.literalsBegin = new int[]{0};
-        this.literalsLength = new short[]{(short) this.data.length};
+        if (this.data.length <= Short.MAX_VALUE) {
+            this.literalsLength = new short[]{(short) this.data.length};
+            this.longLiteralsLength = null;
+        } else {
+            this.literalsLength = new short[]{-1};
+            this.longLiteralsLength = new int[]{this.data.length};
+        }
         this.literalsCount = 1;
     }
 
     public NodeContext(byte[] data, Charset charset, int[] literalsBegin, short[] literalsLength, int literalsCount) {
+        this(data, charset, literalsBegin, literalsLength, null, literalsCount);
+    }
+
+    /**
+     * @param literalsLength     the lengths of up to {@link Short#MAX_VALUE} bytes, or the negated index + 1
+     *                           into the long literal lengths for longer literals
+     * @param longLiteralsLength the lengths of literals that do not fit into a short, can be null if there are none
+     */
+    public NodeContext(byte[] data, Charset charset, int[] literalsBegin, short[] literalsLength, int[] longLiteralsLength, int literalsCount) {
         this.data = data;
         this.charset = charset;
         this.literalsBegin = literalsBegin;
         this.literalsLength = literalsLength;
+        this.longLiteralsLength = longLiteralsLength;
         this.literalsCount = literalsCount;
     }
 
@@ -40,8 +70,227 @@ public final class NodeContext {
         return StringValues.unescapeScalarValue(this, literalIndex);
     }
 
+    /**
+     * Evaluates a key. Equal keys return the same string instance, which avoids creating a string for every key.
+     */
+    public String evaluateKey(int literalIndex) {
+        var table = getSymbolTable();
+        int id = table.intern(this, literalIndex);
+        return id != -1 ? table.get(id) : evaluate(literalIndex);
+    }
+
+    /**
+     * Symbol ids are only valid within this context and allow comparing keys without looking at their contents.
+     *
+     * @return the symbol id of a key literal, or -1 if the key is not interned
+     */
+    public int getSymbol(int literalIndex) {
+        return getSymbolTable().intern(this, literalIndex);
+    }
+
+    /**
+     * @return the symbol id of an unquoted key, or -1 if the key can not be interned
+     */
+    public int getSymbol(String key) {
+        return getSymbolTable().intern(key, key.getBytes(charset));
+    }
+
+    public String getSymbolValue(int symbol) {
+        return getSymbolTable().get(symbol);
+    }
+
+    private SymbolTable getSymbolTable() {
+        var table = symbols;
+        if (table == null) {
+            synchronized (this) {
+                table = symbols;
+                if (table == null) {
+                    table = new SymbolTable();
+                    symbols = table;
+                }
+            }
+        }
+        return table;
+    }
+
     public String evaluateRaw(int literalIndex) {
-        return new String(getData(), literalsBegin[literalIndex], literalsLength[literalIndex], getCharset());
+        return new String(getData(), literalsBegin[literalIndex], getLiteralLength(literalIndex), getCharset());
+    }
+
+    /**
+     * @return the literal without surrounding quotes. Like with {@link #evaluate(int)}, escape sequences are resolved
+     */
+    public String evaluateUnquoted(int literalIndex) {
+        var s = evaluate(literalIndex);
+        return isQuoted(literalIndex) ? s.substring(1, s.length() - 1) : s;
+    }
+
+    private boolean isQuoted(int literalIndex) {
+        int b = literalsBegin[literalIndex];
+        int l = getLiteralLength(literalIndex);
+        return l >= 2 && data[b] == DOUBLE_QUOTE_CHAR && data[b + l - 1] == DOUBLE_QUOTE_CHAR;
+    }
+
+    private int getContentBegin(int literalIndex) {
+        return literalsBegin[literalIndex] + (isQuoted(literalIndex) ? 1 : 0);
+    }
+
+    private int getContentEnd(int literalIndex) {
+        return literalsBegin[literalIndex] + getLiteralLength(literalIndex) - (isQuoted(literalIndex) ? 1 : 0);
+    }
+
+    public boolean parseBoolean(int literalIndex) {
+        int b = getContentBegin(literalIndex);
+        return getContentEnd(literalIndex) - b == 3 && data[b] == 'y' && data[b + 1] == 'e' && data[b + 2] == 's';
+    }
+
+    public int parseInteger(int literalIndex) {
+        long v = parseSimpleLong(literalIndex);
+        if (v == NOT_PARSED || (int) v != v) {
+            return Integer.parseInt(evaluateUnquoted(literalIndex));
+        }
+        return (int) v;
+    }
+
+    public long parseLong(int literalIndex) {
+        long v = parseSimpleLong(literalIndex);
+        if (v == NOT_PARSED) {
+            return Long.parseLong(evaluateUnquoted(literalIndex));
+        }
+        return v;
+    }
+
+    /**
+     * Parses values with an optional sign and up to 18 digits directly from the data.
+     * Everything else, including invalid values, is left to the string based parsing.
+     */
+    private long parseSimpleLong(int literalIndex) {
+        int i = getContentBegin(literalIndex);
+        int end = getContentEnd(literalIndex);
+        boolean negative = false;
+        if (i < end && (data[i] == '-' || data[i] == '+')) {
+            negative = data[i] == '-';
+            i++;
+        }
+
+        if (i == end || end - i > 18) {
+            return NOT_PARSED;
+        }
+
+        long v = 0;
+        for (; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_PARSED;
+            }
+            v = v * 10 + digit;
+        }
+        return negative ? -v : v;
+    }
+
+    /**
+     * Commas are ignored, which also takes care of decimal commas.
+     */
+    public double parseDouble(int literalIndex) {
+        int i = getContentBegin(literalIndex);
+        int end = getContentEnd(literalIndex);
+        boolean negative = false;
+        if (i < end && (data[i] == '-' || data[i] == '+')) {
+            negative = data[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            byte c = data[i];
+            if (c == ',') {
+                continue;
+            }
+
+            if (c == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) {
+                digits = -1;
+                break;
+            }
+
+            mantissa = mantissa * 10 + digit;
+            digits++;
+            if (fraction) {
+                fractionDigits++;
+            }
+            if (digits > 15) {
+                break;
+            }
+        }
+
+        // Both values are exact as doubles, so the division is correctly rounded like Double.parseDouble
+        if (digits <= 0 || digits > 15 || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(evaluateUnquoted(literalIndex).replace(",", ""));
+        }
+        double v = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -v : v;
+    }
+
+    public Node.ValueType getValueType(int literalIndex) {
+        var cache = valueTypes;
+        if (cache == null) {
+            cache = new byte[literalsBegin.length];
+            valueTypes = cache;
+        }
+
+        if (cache[literalIndex] != 0) {
+            return VALUE_TYPES[cache[literalIndex] - 1];
+        }
+
+        var type = classify(literalIndex);
+        cache[literalIndex] = (byte) (type.ordinal() + 1);
+        return type;
+    }
+
+    private Node.ValueType classify(int literalIndex) {
+        int i = literalsBegin[literalIndex];
+        int end = i + getLiteralLength(literalIndex);
+        if (data.length >= 2 && end > i && data[i] == DOUBLE_QUOTE_CHAR && data[end - 1] == DOUBLE_QUOTE_CHAR) {
+            return Node.ValueType.TEXT;
+        }
+
+        int l = end - i;
+        if ((l == 3 && data[i] == 'y' && data[i + 1] == 'e' && data[i + 2] == 's') ||
+                (l == 2 && data[i] == 'n' && data[i + 1] == 'o')) {
+            return Node.ValueType.BOOLEAN;
+        }
+
+        // Matches [+-]?[0-9]+ for integers and [+-]?[0-9]+[.,][0-9]+ for decimals
+        if (i < end && (data[i] == '-' || data[i] == '+')) {
+            i++;
+        }
+        int digitsBegin = i;
+        while (i < end && data[i] >= '0' && data[i] <= '9') {
+            i++;
+        }
+        if (i == digitsBegin) {
+            return Node.ValueType.UNQUOTED_STRING;
+        }
+        if (i == end) {
+            return Node.ValueType.INTEGER;
+        }
+
+        if (data[i] != '.' && data[i] != ',') {
+            return Node.ValueType.UNQUOTED_STRING;
+        }
+        int fractionBegin = ++i;
+        while (i < end && data[i] >= '0' && data[i] <= '9') {
+            i++;
+        }
+        return i == end && i > fractionBegin ? Node.ValueType.FLOATING_POINT : Node.ValueType.UNQUOTED_STRING;
     }
 
     public byte[] getData() {
@@ -56,8 +305,9 @@ public final class NodeContext {
         return literalsBegin;
     }
 
-    public short[] getLiteralsLength() {
-        return literalsLength;
+    public int getLiteralLength(int literalIndex) {
+        int length = literalsLength[literalIndex];
+        return length >= 0 ? length : longLiteralsLength[-length - 1];
     }
 
     public int getLiteralsCount() {
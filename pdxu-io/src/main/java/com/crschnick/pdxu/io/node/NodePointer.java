@@ -13,14 +13,28 @@ public final class NodePointer {
 
     public static interface Element {
 
-        Node tryMatch(Node root, Node n);
+        List<Node> matchAll(Node root, Node n);
 
         default String getKey(Node root, Node n) {
             return null;
         }
     }
 
-    public static final record NameElement(String name) implements Element {
+    /**
+     * An element that matches at most one node.
+     */
+    public static interface SingleElement extends Element {
+
+        Node tryMatch(Node root, Node n);
+
+        @Override
+        default List<Node> matchAll(Node root, Node n) {
+            var found = tryMatch(root, n);
+            return found != null ? List.of(found) : List.of();
+        }
+    }
+
+    public static final record NameElement(String name) implements SingleElement {
 
         @Override
         public Node tryMatch(Node root, Node n) {
@@ -38,7 +52,7 @@ public final class NodePointer {
         }
     }
 
-    public static final record IndexElement(int index) implements Element {
+    public static final record IndexElement(int index) implements SingleElement {
 
         @Override
         public Node tryMatch(Node root, Node n) {
@@ -62,7 +76,24 @@ public final class NodePointer {
         }
     }
 
-    public static final record SupplierElement(Supplier<String> keySupplier) implements Element {
+    /**
+     * Matches every element of an array. As this can match multiple nodes,
+     * pointers that contain a wildcard can only be evaluated with {@link #getAll(Node)}.
+     */
+    public static final record WildcardElement() implements Element {
+
+        @Override
+        public List<Node> matchAll(Node root, Node n) {
+            return n.isArray() ? n.getNodeArray() : List.of();
+        }
+
+        @Override
+        public String toString() {
+            return "*";
+        }
+    }
+
+    public static final record SupplierElement(Supplier<String> keySupplier) implements SingleElement {
 
         @Override
         public Node tryMatch(Node root, Node n) {
@@ -84,7 +115,7 @@ public final class NodePointer {
         }
     }
 
-    public static final record FunctionElement(BiFunction<Node, Node, String> keyFunc) implements Element {
+    public static final record FunctionElement(BiFunction<Node, Node, String> keyFunc) implements SingleElement {
 
         @Override
         public Node tryMatch(Node root, Node n) {
@@ -106,7 +137,7 @@ public final class NodePointer {
         }
     }
 
-    public static final record SelectorElement(Predicate<Node> selector) implements Element {
+    public static final record SelectorElement(Predicate<Node> selector) implements SingleElement {
 
         @Override
         public Node tryMatch(Node root, Node n) {
@@ -146,6 +177,11 @@ public final class NodePointer {
             return this;
         }
 
+        public Builder wildcard() {
+            path.add(new WildcardElement());
+            return this;
+        }
+
         public Builder supplier(Supplier<String> keySupplier) {
             path.add(new SupplierElement(keySupplier));
             return this;
@@ -217,13 +253,20 @@ public final class NodePointer {
     }
 
     public boolean isValid(Node input) {
-        return get(input) != null;
+        return !getAll(input).isEmpty();
     }
 
+    /**
+     * @throws IllegalStateException if the pointer can match multiple nodes, use {@link #getAll(Node)} instead
+     */
     public Node get(Node root) {
+        if (!path.stream().allMatch(e -> e instanceof SingleElement)) {
+            throw new IllegalStateException("Pointer " + this + " can match multiple nodes");
+        }
+
         Node current = root;
         for (Element value : path) {
-            var found = value.tryMatch(root, current);
+            var found = ((SingleElement) value).tryMatch(root, current);
             if (found == null) {
                 return null;
             } else {
@@ -233,6 +276,24 @@ public final class NodePointer {
         return current;
     }
 
+    /**
+     * @return all nodes that the pointer matches, in document order
+     */
+    public List<Node> getAll(Node root) {
+        List<Node> current = List.of(root);
+        for (Element value : path) {
+            List<Node> found = new ArrayList<>();
+            for (Node n : current) {
+                found.addAll(value.matchAll(root, n));
+            }
+            if (found.isEmpty()) {
+                return List.of();
+            }
+            current = found;
+        }
+        return current;
+    }
+
     public Optional<Node> getIfPresent(Node root) {
         return Optional.ofNullable(get(root));
     }
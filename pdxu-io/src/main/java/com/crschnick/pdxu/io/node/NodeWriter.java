@@ -1,6 +1,7 @@
 package com.crschnick.pdxu.io.node;
 
 import java.io.*;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -22,20 +23,34 @@ public interface NodeWriter {
     }
 
     static void write(OutputStream out, Charset charset, ArrayNode node, String indent, int indentLevel) throws IOException {
-        var bout = new BufferedOutputStream(out, 1000000);
-        try {
-            var writer = new NodeWriterImpl(bout, charset, Integer.MAX_VALUE, indent);
-            for (int i = 0; i < indentLevel; i++) {
-                writer.incrementIndent();
-            }
-            node.writeTopLevel(writer);
-            bout.flush();
+        try (var writer = BufferedNodeWriter.create(out, charset, Integer.MAX_VALUE, indent)) {
+            write(writer, node, indentLevel);
         } catch (IOException e) {
-            bout.close();
+            out.close();
             throw e;
         }
     }
 
+    /**
+     * Writes the entries of the node on multiple threads. The output is the same as for a single threaded write.
+     */
+    static void writeParallel(OutputStream out, Charset charset, ArrayNode node, String indent, int indentLevel) throws IOException {
+        ParallelNodeWriter.write(out, charset, node, indent, indentLevel);
+    }
+
+    static void write(WritableByteChannel out, Charset charset, ArrayNode node, String indent, int indentLevel) throws IOException {
+        try (var writer = BufferedNodeWriter.create(out, charset, Integer.MAX_VALUE, indent)) {
+            write(writer, node, indentLevel);
+        }
+    }
+
+    private static void write(NodeWriter writer, ArrayNode node, int indentLevel) throws IOException {
+        for (int i = 0; i < indentLevel; i++) {
+            writer.incrementIndent();
+        }
+        node.writeTopLevel(writer);
+    }
+
     void incrementIndent();
 
     void decrementIndent();
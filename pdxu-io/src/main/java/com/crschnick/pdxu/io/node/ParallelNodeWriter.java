@@ -0,0 +1,116 @@
+package com.crschnick.pdxu.io.node;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Writes the entries of a node on the common fork join pool.
+ * The entries are split into parts that are written into separate buffers,
+ * which are then written to the output in order. The output is therefore identical to a single threaded write.
+ * <p>
+ * Savegames usually consist of a few very large sections, so large arrays are split into parts as well.
+ */
+final class ParallelNodeWriter {
+
+    private static final int CHUNK_SIZE = 512;
+
+    private interface Part {
+
+        void write(NodeWriter writer) throws IOException;
+    }
+
+    private record Task(Part part, int indentLevel) {
+    }
+
+    static void write(OutputStream out, Charset charset, ArrayNode node, String indent, int indentLevel) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        split(node, indentLevel, tasks);
+
+        // Limit the amount of buffered parts that are waiting to be written
+        int maxRunning = ForkJoinPool.getCommonPoolParallelism() * 4;
+        var running = new ArrayDeque<Future<ByteArrayOutputStream>>();
+        int next = 0;
+        try {
+            while (next < tasks.size() || !running.isEmpty()) {
+                while (next < tasks.size() && running.size() < maxRunning) {
+                    var task = tasks.get(next++);
+                    running.add(ForkJoinPool.commonPool().submit(() -> writeTask(task, charset, indent)));
+                }
+                running.remove().get().writeTo(out);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException u) {
+                throw u.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            running.forEach(f -> f.cancel(false));
+        }
+    }
+
+    private static ByteArrayOutputStream writeTask(Task task, Charset charset, String indent) {
+        var out = new ByteArrayOutputStream(CHUNK_SIZE * 64);
+        try (var writer = BufferedNodeWriter.create(out, charset, Integer.MAX_VALUE, indent)) {
+            for (int i = 0; i < task.indentLevel(); i++) {
+                writer.incrementIndent();
+            }
+            task.part().write(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    private static void split(ArrayNode node, int indentLevel, List<Task> tasks) {
+        if (!(node instanceof SimpleArrayNode simple)) {
+            addChunks(node, 0, node.size(), indentLevel, tasks);
+            return;
+        }
+
+        // Scalars are not evaluated, that would keep a value node for each of them after writing
+        int chunkBegin = 0;
+        for (int i = 0; i < simple.size(); i++) {
+            var array = simple.getArrayAt(i);
+            if (array == null || array.size() < CHUNK_SIZE * 2 || array.isFlat()) {
+                continue;
+            }
+
+            // Write the same as ArrayNode.write, except that the contents are split up
+            addChunks(node, chunkBegin, i - chunkBegin, indentLevel, tasks);
+            int index = i;
+            tasks.add(new Task(w -> {
+                w.indent();
+                simple.writeKey(w, index);
+                w.write("{");
+                w.newLine();
+            }, indentLevel));
+            split(array, indentLevel + 1, tasks);
+            tasks.add(new Task(w -> {
+                w.indent();
+                w.write("}");
+                w.newLine();
+            }, indentLevel));
+            chunkBegin = i + 1;
+        }
+        addChunks(node, chunkBegin, simple.size() - chunkBegin, indentLevel, tasks);
+    }
+
+    private static void addChunks(ArrayNode node, int begin, int length, int indentLevel, List<Task> tasks) {
+        for (int i = begin; i < begin + length; i += CHUNK_SIZE) {
+            var chunk = node.splice(i, Math.min(CHUNK_SIZE, begin + length - i));
+            tasks.add(new Task(chunk::writeTopLevel, indentLevel));
+        }
+    }
+}
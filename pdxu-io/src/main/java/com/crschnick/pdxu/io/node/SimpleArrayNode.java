@@ -4,15 +4,30 @@ import java.io.IOException;
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 
 public final class SimpleArrayNode extends ArrayNode {
 
+    // Key lookups on large arrays switch from a linear scan to a hash index after this many lookups
+    private static final int KEY_INDEX_LOOKUPS = 8;
+    private static final int KEY_INDEX_MIN_SIZE = 32;
+
     private final NodeContext context;
     private final int[] keyScalars;
     private final int[] valueScalars;
     private final List<Node> values;
 
+    /**
+     * Open addressing table of entry index + 1, with 0 marking an empty slot, for an array of the given size.
+     * The fields are final, so a filled table is also safely visible to other threads reading the same tree.
+     */
+    private record KeyIndex(int[] table, int size) {
+    }
+
+    private KeyIndex keyIndex;
+    private int keyLookups;
+
     SimpleArrayNode(NodeContext context, int[] keyScalars, int[] valueScalars, List<Node> values) {
         this.context = Objects.requireNonNull(context);
         this.keyScalars = keyScalars;
@@ -31,7 +46,7 @@ public final class SimpleArrayNode extends ArrayNode {
             evaluateAllValueNodes();
             for (int i = 0; i < values.size(); i++) {
                 if (hasKeyAtIndex(i)) {
-                    sb.append(context.evaluate(keyScalars[i]));
+                    sb.append(context.evaluateKey(keyScalars[i]));
                     sb.append("=");
                 }
                 sb.append(values.get(i).toString());
@@ -111,19 +126,17 @@ public final class SimpleArrayNode extends ArrayNode {
 
     @Override
     public Descriptor describe() {
-        evaluateAllValueNodes();
-
         if (values.size() == 0) {
             // Empty array type
             return new Descriptor(null, KeyType.NONE);
         }
 
-        boolean hasArrays = values.stream().anyMatch(Node::isArray);
+        boolean hasArrays = values.stream().anyMatch(v -> v != null && v.isArray());
         ValueType type = null;
         if (!hasArrays) {
-            type = values.get(0).describe().getValueType();
+            type = getValueTypeAt(0);
             for (int i = 1; i < values.size(); i++) {
-                var iT = values.get(i).describe().getValueType();
+                var iT = getValueTypeAt(i);
                 if (!iT.equals(type)) {
                     type = null;
                     break;
@@ -147,6 +160,14 @@ public final class SimpleArrayNode extends ArrayNode {
         return new Descriptor(type, KeyType.MIXED);
     }
 
+    private ValueType getValueTypeAt(int i) {
+        // Scalars that have not been evaluated yet can be classified without creating a node
+        if (values.get(i) == null) {
+            return context.getValueType(valueScalars[i]);
+        }
+        return values.get(i).describe().getValueType();
+    }
+
     public void forEach(BiConsumer<String, Node> c, boolean includeNullKeys) {
         forEach((k, v) -> {
             c.accept(k, v);
@@ -154,13 +175,25 @@ public final class SimpleArrayNode extends ArrayNode {
         }, includeNullKeys);
     }
 
+    /**
+     * @return the array at the index, or null if the entry is not an array. Scalars are not evaluated.
+     */
+    ArrayNode getArrayAt(int index) {
+        var value = values.get(index);
+        return value != null && value.isArray() ? value.getArrayNode() : null;
+    }
+
+    void writeKey(NodeWriter writer, int index) throws IOException {
+        if (hasKeyAtIndex(index)) {
+            writer.write(context, keyScalars[index]);
+            writer.write("=");
+        }
+    }
+
     protected void writeInternal(NodeWriter writer) throws IOException {
         for (int i = 0; i < values.size(); i++) {
             writer.indent();
-            if (hasKeyAtIndex(i)) {
-                writer.write(context, keyScalars[i]);
-                writer.write("=");
-            }
+            writeKey(writer, i);
 
             if (values.get(i) == null) {
                 writer.write(context, valueScalars[i]);
@@ -184,7 +217,7 @@ public final class SimpleArrayNode extends ArrayNode {
                     key = null;
                 }
             } else {
-                key = context.evaluate(keyScalars[i]);
+                key = context.evaluateKey(keyScalars[i]);
             }
 
             if (!c.test(key, values.get(i))) {
@@ -225,7 +258,28 @@ public final class SimpleArrayNode extends ArrayNode {
             return null;
         }
 
-        return context.evaluate(keyScalars[index]);
+        return context.evaluateKey(keyScalars[index]);
+    }
+
+    /**
+     * Allows comparing keys by their symbol id, see {@link NodeContext#getSymbol(int)}.
+     * An id of -1 never denotes a match.
+     *
+     * @return the symbol id of the key at the index, or -1 if there is no key or it is not interned
+     */
+    public int getKeySymbolAt(int index) {
+        if (!hasKeyAtIndex(index)) {
+            return -1;
+        }
+
+        return context.getSymbol(keyScalars[index]);
+    }
+
+    /**
+     * @return the symbol id of an unquoted key in the context of this node, or -1 if the key can not be interned
+     */
+    public int getKeySymbol(String key) {
+        return context.getSymbol(key);
     }
 
     private boolean hasKeyAtIndex(int index) {
@@ -242,12 +296,12 @@ public final class SimpleArrayNode extends ArrayNode {
         }
 
         int keyScalarIndex = keyScalars[index];
-        if (context.getLiteralsLength()[keyScalarIndex] != b.length) {
+        if (context.getLiteralLength(keyScalarIndex) != b.length) {
             return false;
         }
 
         int start = context.getLiteralsBegin()[keyScalarIndex];
-        for (int i = 0; i < context.getLiteralsLength()[keyScalarIndex]; i++) {
+        for (int i = 0; i < context.getLiteralLength(keyScalarIndex); i++) {
             if (context.getData()[start + i] != b[i]) {
                 return false;
             }
@@ -255,22 +309,91 @@ public final class SimpleArrayNode extends ArrayNode {
         return true;
     }
 
+    private static int hash(byte[] data, int start, int length) {
+        int h = 0;
+        for (int i = start; i < start + length; i++) {
+            h = 31 * h + data[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the key index table, or null if a linear scan should be used
+     */
+    private int[] getKeyIndex() {
+        int size = values.size();
+        var index = keyIndex;
+        if (index != null && index.size() == size) {
+            return index.table();
+        }
+
+        // The values list can grow through a builder or be shared by a splice, so the index is only valid for one size
+        if (size < KEY_INDEX_MIN_SIZE || ++keyLookups < KEY_INDEX_LOOKUPS) {
+            return null;
+        }
+
+        int[] table = new int[Integer.highestOneBit(size) << 2];
+        int mask = table.length - 1;
+        var begin = context.getLiteralsBegin();
+        for (int i = 0; i < size; i++) {
+            if (!hasKeyAtIndex(i)) {
+                continue;
+            }
+
+            // Entries are inserted in order, so equal keys are also found in order when probing
+            int slot = hash(context.getData(), begin[keyScalars[i]], context.getLiteralLength(keyScalars[i])) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        keyIndex = new KeyIndex(table, size);
+        return table;
+    }
+
+    /**
+     * Passes the indices of all entries with the given key in ascending order to the consumer,
+     * until it returns false. All entries are found in a single pass.
+     */
+    private void forEachKeyIndex(byte[] b, IntPredicate consumer) {
+        var table = getKeyIndex();
+        if (table == null) {
+            for (int i = 0; i < values.size(); i++) {
+                if (isKeyAt(i, b) && !consumer.test(i)) {
+                    return;
+                }
+            }
+            return;
+        }
+
+        int mask = table.length - 1;
+        for (int slot = hash(b, 0, b.length) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int i = table[slot] - 1;
+            if (isKeyAt(i, b) && !consumer.test(i)) {
+                return;
+            }
+        }
+    }
+
     private Node getNodeForKeyInternal(String key) {
         // Check if this node has no keys
         if (keyScalars == null) {
             return null;
         }
 
-        var b = key.getBytes(context.getCharset());
-        for (int i = 0; i < values.size(); i++) {
-            if (isKeyAt(i, b)) {
-                // Initialize value node if we haven't done that already
-                evaluateNodeAt(i);
-                return values.get(i);
-            }
+        var found = new int[] {-1};
+        forEachKeyIndex(key.getBytes(context.getCharset()), i -> {
+            found[0] = i;
+            return false;
+        });
+        int i = found[0];
+        if (i == -1) {
+            return null;
         }
 
-        return null;
+        // Initialize value node if we haven't done that already
+        evaluateNodeAt(i);
+        return values.get(i);
     }
 
     @Override
@@ -301,14 +424,16 @@ public final class SimpleArrayNode extends ArrayNode {
 
     @Override
     public List<Node> getNodesForKey(String key) {
-        var b = key.getBytes(context.getCharset());
         List<Node> found = new ArrayList<>();
-        for (int i = 0; i < values.size(); i++) {
-            if (isKeyAt(i, b)) {
-                evaluateNodeAt(i);
-                found.add(values.get(i));
-            }
+        if (keyScalars == null) {
+            return found;
         }
+
+        forEachKeyIndex(key.getBytes(context.getCharset()), i -> {
+            evaluateNodeAt(i);
+            found.add(values.get(i));
+            return true;
+        });
         return found;
     }
 }
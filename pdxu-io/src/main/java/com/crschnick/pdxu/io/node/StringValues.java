@@ -10,7 +10,7 @@ public class StringValues {
 
     public static String unescapeScalarValue(NodeContext context, int index) {
         var b = context.getLiteralsBegin()[index];
-        var l = context.getLiteralsLength()[index];
+        var l = context.getLiteralLength(index);
         var s = new String(context.getData(), b, l, context.getCharset());
         if (l < 2) {
             return s;
@@ -0,0 +1,137 @@
+package com.crschnick.pdxu.io.node;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Interns the keys of one parsed input, so that equal keys share one string and one symbol id.
+ * Lookups hash the raw scalar bytes and only create a string for keys that are seen for the first time.
+ * <p>
+ * Purely numeric keys, which are usually ids, are not interned.
+ * Once the table is full, no further symbols are added.
+ * <p>
+ * Lookups of existing symbols do not lock. New symbols are added while holding the lock
+ * and are published with a release write of their slot.
+ */
+final class SymbolTable {
+
+    private static final int MAX_SYMBOLS = 1 << 16;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    // Open addressing table of symbol id + 1, with 0 marking an empty slot
+    private record Table(int[] slots, int[] hashes, byte[][] bytes, String[] values) {
+    }
+
+    private volatile Table table = new Table(new int[256], new int[128], new byte[128][], new String[128]);
+    private int count;
+
+    private static int hash(byte[] data, int start, int length) {
+        int h = 0;
+        for (int i = start; i < start + length; i++) {
+            h = 31 * h + data[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean isNumeric(byte[] data, int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            if (data[i] < '0' || data[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int find(Table t, byte[] data, int start, int length, int hash) {
+        int mask = t.slots().length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = (int) SLOTS.getAcquire(t.slots(), slot);
+            if (entry == 0) {
+                return -1;
+            }
+
+            int id = entry - 1;
+            if (t.hashes()[id] == hash && Arrays.equals(t.bytes()[id], 0, t.bytes()[id].length, data, start, start + length)) {
+                return id;
+            }
+        }
+    }
+
+    int intern(String key, byte[] raw) {
+        if (isNumeric(raw, 0, raw.length)) {
+            return -1;
+        }
+
+        int hash = hash(raw, 0, raw.length);
+        int id = find(table, raw, 0, raw.length, hash);
+        return id != -1 ? id : add(raw, 0, raw.length, hash, key, null, -1);
+    }
+
+    int intern(NodeContext context, int literalIndex) {
+        var data = context.getData();
+        int start = context.getLiteralsBegin()[literalIndex];
+        int length = context.getLiteralLength(literalIndex);
+        if (isNumeric(data, start, length)) {
+            return -1;
+        }
+
+        int hash = hash(data, start, length);
+        int id = find(table, data, start, length, hash);
+        return id != -1 ? id : add(data, start, length, hash, null, context, literalIndex);
+    }
+
+    String get(int id) {
+        return table.values()[id];
+    }
+
+    /**
+     * @param value the symbol value, or null if it should be evaluated from the context literal
+     */
+    private synchronized int add(byte[] data, int start, int length, int hash, String value, NodeContext context, int literalIndex) {
+        var t = table;
+        // Another thread might have added it in the meantime
+        int id = find(t, data, start, length, hash);
+        if (id != -1 || count == MAX_SYMBOLS) {
+            return id;
+        }
+
+        if (count == t.values().length) {
+            t = grow(t);
+        }
+
+        id = count++;
+        t.hashes()[id] = hash;
+        t.bytes()[id] = Arrays.copyOfRange(data, start, start + length);
+        t.values()[id] = value != null ? value : context.evaluate(literalIndex);
+        insert(t, id, true);
+        return id;
+    }
+
+    private Table grow(Table t) {
+        var grown = new Table(
+                new int[t.slots().length * 2],
+                Arrays.copyOf(t.hashes(), count * 2),
+                Arrays.copyOf(t.bytes(), count * 2),
+                Arrays.copyOf(t.values(), count * 2));
+        for (int id = 0; id < count; id++) {
+            insert(grown, id, false);
+        }
+        table = grown;
+        return grown;
+    }
+
+    private static void insert(Table t, int id, boolean publish) {
+        int mask = t.slots().length - 1;
+        int slot = t.hashes()[id] & mask;
+        while (t.slots()[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        if (publish) {
+            SLOTS.setRelease(t.slots(), slot, id + 1);
+        } else {
+            t.slots()[slot] = id + 1;
+        }
+    }
+}
@@ -26,7 +26,7 @@ public final class TaggedNode extends Node {
         }
 
         var begin = ctx.getLiteralsBegin()[index];
-        var length = ctx.getLiteralsLength()[index];
+        var length = ctx.getLiteralLength(index);
 
         // Make lookup as fast as possible
         if (possible == COLORS) {
@@ -3,13 +3,10 @@ package com.crschnick.pdxu.io.node;
 import java.io.IOException;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
 public final class ValueNode extends Node {
 
     private static final byte DOUBLE_QUOTE_CHAR = 34;
-    private static final Pattern LONG = Pattern.compile("[+-]?[0-9]+");
-    private static final Pattern DOUBLE = Pattern.compile("[+-]?([0-9]+)[.,]([0-9]+)");
 
     private NodeContext context;
     private int scalarIndex;
@@ -41,7 +38,7 @@ public final class ValueNode extends Node {
 
         var b = context.getLiteralsBegin()[scalarIndex];
         return context.getData()[b] == DOUBLE_QUOTE_CHAR &&
-                context.getData()[b + context.getLiteralsLength()[scalarIndex] - 1] == DOUBLE_QUOTE_CHAR;
+                context.getData()[b + context.getLiteralLength(scalarIndex) - 1] == DOUBLE_QUOTE_CHAR;
     }
 
     @Override
@@ -56,22 +53,7 @@ public final class ValueNode extends Node {
 
     @Override
     public Descriptor describe() {
-        ValueType t;
-        if (isQuoted()) {
-            t = ValueType.TEXT;
-        } else {
-            var s = evaluateContent();
-            if (s.equals("yes") || s.equals("no")) {
-                t = ValueType.BOOLEAN;
-            } else if (DOUBLE.matcher(s).matches()) {
-                t = ValueType.FLOATING_POINT;
-            } else if (LONG.matcher(s).matches()) {
-                t = ValueType.INTEGER;
-            } else {
-                t = ValueType.UNQUOTED_STRING;
-            }
-        }
-        return new Descriptor(t, KeyType.NONE);
+        return new Descriptor(context.getValueType(scalarIndex), KeyType.NONE);
     }
 
     @Override
@@ -81,7 +63,7 @@ public final class ValueNode extends Node {
 
     @Override
     public boolean getBoolean() {
-        return "yes".equals(evaluateContent());
+        return context.parseBoolean(scalarIndex);
     }
 
     private String evaluateContent() {
@@ -101,18 +83,17 @@ public final class ValueNode extends Node {
 
     @Override
     public int getInteger() {
-        return Integer.parseInt(evaluateContent());
+        return context.parseInteger(scalarIndex);
     }
 
     @Override
     public long getLong() {
-        return Long.parseLong(evaluateContent());
+        return context.parseLong(scalarIndex);
     }
 
     @Override
     public double getDouble() {
-        // Replaces decimal commas
-        return Double.parseDouble(evaluateContent().replaceAll(",", ""));
+        return context.parseDouble(scalarIndex);
     }
 
     @Override
@@ -0,0 +1,55 @@
+package com.crschnick.pdxu.io.parser;
+
+import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.LazyArrayNode;
+import com.crschnick.pdxu.io.node.NodeContext;
+import com.crschnick.pdxu.io.node.TaggedNode;
+
+import java.util.function.Predicate;
+
+/**
+ * Keeps the tokens of a lazily parsed input to build the contents of its {@link LazyArrayNode}s on demand.
+ */
+final class LazyTokenLoader implements LazyArrayNode.Loader {
+
+    private final String name;
+    private final boolean strict;
+    private final TextFormatTokenizer tokenizer;
+    private final NodeContext context;
+    private final TaggedNode.TagType[] possibleTags;
+    private final Predicate<String> keyWithoutEquals;
+
+    LazyTokenLoader(String name, boolean strict, TextFormatTokenizer tokenizer, NodeContext context,
+                    TaggedNode.TagType[] possibleTags, Predicate<String> keyWithoutEquals) {
+        this.name = name;
+        this.strict = strict;
+        this.tokenizer = tokenizer;
+        this.context = context;
+        this.possibleTags = possibleTags;
+        this.keyWithoutEquals = keyWithoutEquals;
+    }
+
+    ArrayNode loadRoot() throws ParseException {
+        var reader = createReader();
+        var builder = new LazyTreeBuilder(context, reader, this);
+        reader.read(builder);
+        return builder.getResult();
+    }
+
+    @Override
+    public ArrayNode load(int tokenIndex, int scalarIndex, int arrayIndex, int size) {
+        var reader = createReader();
+        var builder = new LazyTreeBuilder(context, reader, this);
+        try {
+            reader.readArrayAt(tokenIndex, scalarIndex, arrayIndex, size, builder);
+        } catch (ParseException e) {
+            // The whole input has already been read once when it was parsed
+            throw new IllegalStateException(e);
+        }
+        return builder.getResult();
+    }
+
+    private TokenReader createReader() {
+        return new TokenReader(name, strict, tokenizer, context, possibleTags, keyWithoutEquals);
+    }
+}
@@ -0,0 +1,86 @@
+package com.crschnick.pdxu.io.parser;
+
+import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.LazyArrayNode;
+import com.crschnick.pdxu.io.node.Node;
+import com.crschnick.pdxu.io.node.NodeContext;
+import com.crschnick.pdxu.io.node.TaggedNode;
+
+/**
+ * Builds a single array and creates {@link LazyArrayNode}s for all arrays inside it.
+ * The contents of inner arrays are still walked over with the same reader,
+ * which checks them for errors and moves over them exactly like a full parse would.
+ */
+final class LazyTreeBuilder implements TextFormatHandler {
+
+    private final NodeContext context;
+    private final TokenReader reader;
+    private final LazyArrayNode.Loader loader;
+    private ArrayNode.Builder builder;
+    private int innerDepth;
+    private ArrayNode result;
+
+    LazyTreeBuilder(NodeContext context, TokenReader reader, LazyArrayNode.Loader loader) {
+        this.context = context;
+        this.reader = reader;
+        this.loader = loader;
+    }
+
+    private void put(int keyIndex, Node node) {
+        if (keyIndex != -1) {
+            builder.putKeyAndNodeValue(keyIndex, node);
+        } else {
+            builder.putNodeValue(node);
+        }
+    }
+
+    @Override
+    public boolean startArray(int keyIndex, int size) {
+        if (builder == null) {
+            builder = new ArrayNode.Builder(context, size);
+            return true;
+        }
+
+        if (innerDepth == 0) {
+            put(keyIndex, new LazyArrayNode(loader, reader.getTokenIndex(), reader.getScalarIndex(), reader.getArrayIndex(), size));
+        }
+        innerDepth++;
+        return true;
+    }
+
+    @Override
+    public void endArray() {
+        if (innerDepth > 0) {
+            innerDepth--;
+            return;
+        }
+
+        result = builder.build();
+    }
+
+    @Override
+    public void scalar(int keyIndex, int valueIndex) {
+        if (innerDepth > 0) {
+            return;
+        }
+
+        if (keyIndex != -1) {
+            builder.putKeyAndScalarValue(keyIndex, valueIndex);
+        } else {
+            builder.putScalarValue(valueIndex);
+        }
+    }
+
+    @Override
+    public void tagged(int keyIndex, TaggedNode.TagType type, int valuesBegin, int valuesCount) {
+        if (innerDepth > 0) {
+            return;
+        }
+
+        put(keyIndex, NodeTreeBuilder.createTaggedNode(context, type, valuesBegin, valuesCount));
+    }
+
+    ArrayNode getResult() {
+        return result;
+    }
+}
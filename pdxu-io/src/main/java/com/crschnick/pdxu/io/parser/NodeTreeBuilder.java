@@ -0,0 +1,85 @@
+package com.crschnick.pdxu.io.parser;
+
+import com.crschnick.pdxu.io.node.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds the node tree from parser events.
+ */
+final class NodeTreeBuilder implements TextFormatHandler {
+
+    private final NodeContext context;
+    private ArrayNode.Builder[] parents = new ArrayNode.Builder[64];
+    private int[] keys = new int[64];
+    private int depth;
+    private ArrayNode.Builder current;
+    private ArrayNode result;
+
+    NodeTreeBuilder(NodeContext context) {
+        this.context = context;
+    }
+
+    private void put(int keyIndex, Node node) {
+        if (current == null) {
+            result = (ArrayNode) node;
+            return;
+        }
+
+        if (keyIndex != -1) {
+            current.putKeyAndNodeValue(keyIndex, node);
+        } else {
+            current.putNodeValue(node);
+        }
+    }
+
+    @Override
+    public boolean startArray(int keyIndex, int size) {
+        if (depth == parents.length) {
+            parents = Arrays.copyOf(parents, depth * 2);
+            keys = Arrays.copyOf(keys, depth * 2);
+        }
+        parents[depth] = current;
+        keys[depth] = keyIndex;
+        depth++;
+        current = new ArrayNode.Builder(context, size);
+        return true;
+    }
+
+    @Override
+    public void endArray() {
+        var node = current.build();
+        depth--;
+        current = parents[depth];
+        parents[depth] = null;
+        put(keys[depth], node);
+    }
+
+    @Override
+    public void scalar(int keyIndex, int valueIndex) {
+        if (keyIndex != -1) {
+            current.putKeyAndScalarValue(keyIndex, valueIndex);
+        } else {
+            current.putScalarValue(valueIndex);
+        }
+    }
+
+    @Override
+    public void tagged(int keyIndex, TaggedNode.TagType type, int valuesBegin, int valuesCount) {
+        put(keyIndex, createTaggedNode(context, type, valuesBegin, valuesCount));
+    }
+
+    static TaggedNode createTaggedNode(NodeContext context, TaggedNode.TagType type, int valuesBegin, int valuesCount) {
+        List<ValueNode> components = new ArrayList<>(valuesCount);
+        for (int i = valuesBegin; i < valuesBegin + valuesCount; i++) {
+            components.add(new ValueNode(context, i));
+        }
+        return new TaggedNode(type, components);
+    }
+
+    ArrayNode getResult() {
+        return result;
+    }
+}
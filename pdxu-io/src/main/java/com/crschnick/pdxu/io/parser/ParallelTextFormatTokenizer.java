@@ -0,0 +1,169 @@
+package com.crschnick.pdxu.io.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tokenizes large inputs by splitting them into chunks at top level boundaries,
+ * tokenizing the chunks in parallel and stitching the results back together.
+ * The result is exactly the same as the one of a sequential {@link TextFormatTokenizer}.
+ * <p>
+ * Chunk boundaries are guessed from the formatting of the input, i.e. a new line that is followed by an unindented key.
+ * Whether a guessed boundary actually is at the top level is only known after the previous chunk has been tokenized.
+ * If any boundary turns out to be wrong, the input is tokenized sequentially instead.
+ */
+public final class ParallelTextFormatTokenizer {
+
+    private static final int MIN_CHUNK_SIZE = 8_000_000;
+
+    public static TextFormatTokenizer tokenize(String name, byte[] bytes, int start, boolean strict) throws ParseException {
+        return tokenize(name, bytes, start, strict, MIN_CHUNK_SIZE);
+    }
+
+    static TextFormatTokenizer tokenize(String name, byte[] bytes, int start, boolean strict, int minChunkSize) throws ParseException {
+        var chunks = createChunks(name, bytes, start, strict, minChunkSize);
+        if (chunks.size() > 1) {
+            var merged = tokenizeChunks(name, bytes, chunks);
+            if (merged != null) {
+                return merged;
+            }
+        }
+
+        var tokenizer = new TextFormatTokenizer(name, bytes, start, strict);
+        tokenizer.tokenize();
+        return tokenizer;
+    }
+
+    private static List<TextFormatTokenizer> createChunks(String name, byte[] bytes, int start, boolean strict, int minChunkSize) {
+        int length = bytes.length - start;
+        int count = Math.min(ForkJoinPool.getCommonPoolParallelism(), length / minChunkSize);
+        List<TextFormatTokenizer> chunks = new ArrayList<>();
+        if (count <= 1) {
+            return chunks;
+        }
+
+        int chunkStart = start;
+        for (int c = 1; c < count; c++) {
+            int boundary = findBoundary(bytes, Math.max(chunkStart, start + (int) ((long) length * c / count)));
+            if (boundary == -1) {
+                break;
+            }
+
+            chunks.add(new TextFormatTokenizer(name, bytes, chunkStart, boundary, strict, true, c > 1));
+            chunkStart = boundary;
+        }
+        chunks.add(new TextFormatTokenizer(name, bytes, chunkStart, bytes.length, strict, true, chunks.size() > 0));
+        return chunks;
+    }
+
+    private static int findBoundary(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length - 1; i++) {
+            if (bytes[i] == '\n' && isKeyStart(bytes[i + 1])) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isKeyStart(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+    }
+
+    private static TextFormatTokenizer tokenizeChunks(String name, byte[] bytes, List<TextFormatTokenizer> chunks) {
+        List<Callable<TextFormatTokenizer>> tasks = chunks.stream().<Callable<TextFormatTokenizer>>map(c -> () -> {
+            c.tokenize();
+            return c;
+        }).toList();
+
+        try {
+            for (var f : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                f.get();
+            }
+        } catch (ExecutionException e) {
+            // Errors are reported by the sequential tokenizer, the chunk boundaries might have been wrong
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        for (int c = 0; c < chunks.size(); c++) {
+            var chunk = chunks.get(c);
+            if (c < chunks.size() - 1 && !chunk.endedAtTopLevel()) {
+                return null;
+            }
+
+            // The top level size of a chunk is only correct if it did not have to be clamped to zero
+            if (c > 0 && chunk.hadTopLevelSizeUnderflow()) {
+                return null;
+            }
+        }
+
+        // Too many long scalars in total are reported by the sequential tokenizer
+        if (chunks.stream().mapToInt(TextFormatTokenizer::getLongScalarCount).sum() > TextFormatTokenizer.MAX_LONG_SCALARS) {
+            return null;
+        }
+
+        return merge(name, bytes, chunks);
+    }
+
+    private static TextFormatTokenizer merge(String name, byte[] bytes, List<TextFormatTokenizer> chunks) {
+        // Each chunk contains an additional open group token at the beginning and a close group token at the end
+        int tokenCount = 2;
+        int scalarCount = 0;
+        int arrayCount = 1;
+        int longScalarCount = 0;
+        for (var chunk : chunks) {
+            tokenCount += chunk.getTokenCount() - 1;
+            scalarCount += chunk.getScalarCount();
+            longScalarCount += chunk.getLongScalarCount();
+            arrayCount += chunk.getArrayCount() - 1;
+        }
+
+        // Leave room for one additional token and scalar as the parser looks ahead by one
+        var tokenTypes = new byte[tokenCount + 1];
+        var scalarsStart = new int[scalarCount + 1];
+        var scalarsLength = new short[scalarCount + 1];
+        var longScalarsLength = new int[longScalarCount];
+        var arraySizes = new int[arrayCount];
+
+        tokenTypes[0] = TextFormatTokenizer.OPEN_GROUP;
+        int tokenOffset = 1;
+        int scalarOffset = 0;
+        int arrayOffset = 1;
+        int longScalarOffset = 0;
+        for (var chunk : chunks) {
+            int chunkTokens = chunk.getTokenCount() - 1;
+            System.arraycopy(chunk.getTokenTypes(), 1, tokenTypes, tokenOffset, chunkTokens);
+            tokenOffset += chunkTokens;
+
+            // Scalar positions are already absolute
+            System.arraycopy(chunk.getScalarsStart(), 0, scalarsStart, scalarOffset, chunk.getScalarCount());
+            System.arraycopy(chunk.getScalarsLength(), 0, scalarsLength, scalarOffset, chunk.getScalarCount());
+
+            // References to the overflow table of long scalars are relative to the chunk
+            if (chunk.getLongScalarCount() > 0) {
+                System.arraycopy(chunk.getLongScalarsLength(), 0, longScalarsLength, longScalarOffset, chunk.getLongScalarCount());
+                for (int i = scalarOffset; i < scalarOffset + chunk.getScalarCount(); i++) {
+                    if (scalarsLength[i] < 0) {
+                        scalarsLength[i] = (short) (scalarsLength[i] - longScalarOffset);
+                    }
+                }
+                longScalarOffset += chunk.getLongScalarCount();
+            }
+            scalarOffset += chunk.getScalarCount();
+
+            arraySizes[0] += chunk.getArraySizes()[0];
+            int chunkArrays = chunk.getArrayCount() - 1;
+            System.arraycopy(chunk.getArraySizes(), 1, arraySizes, arrayOffset, chunkArrays);
+            arrayOffset += chunkArrays;
+        }
+        tokenTypes[tokenOffset] = TextFormatTokenizer.CLOSE_GROUP;
+
+        return new TextFormatTokenizer(name, bytes, tokenTypes, tokenOffset, scalarsStart, scalarsLength, scalarCount,
+                longScalarsLength, longScalarCount, arraySizes);
+    }
+}
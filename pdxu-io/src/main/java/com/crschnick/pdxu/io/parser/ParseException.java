@@ -60,6 +60,16 @@ public class ParseException extends Exception {
     }
 
     public static ParseException createFromOffset(String fileName, String s, int offset, byte[] data) {
+        return createFromOffset(fileName, s, offset, data, 0, 0);
+    }
+
+    /**
+     * Creates an exception for data that is only a part of the input.
+     *
+     * @param dataOffset the offset of the data in the input
+     * @param dataLine the number of lines in the input in front of the data
+     */
+    public static ParseException createFromOffset(String fileName, String s, int offset, byte[] data, long dataOffset, int dataLine) {
         // Clamp range
         offset = Math.max(0, Math.min(offset, data.length - 1));
 
@@ -67,7 +77,8 @@ public class ParseException extends Exception {
         var end = getDataEnd(offset, data);
         var length = Math.max(end - start + 1, 0);
         var snippet = new String(data, start, length);
-        var msg = "Parser failed for " + fileName + " at line " + getLineNumber(offset, data) + " / offset " + offset + ": " + s + "\n\n" + snippet;
+        var line = dataLine + getLineNumber(offset, data);
+        var msg = "Parser failed for " + fileName + " at line " + line + " / offset " + (dataOffset + offset) + ": " + s + "\n\n" + snippet;
         return new ParseException(msg);
     }
 
@@ -76,6 +87,23 @@ public class ParseException extends Exception {
         return createFromOffset(fileName, s, offset, ctx.getData());
     }
 
+    /**
+     * Creates an exception for a streamed input, of which only the scalars are known.
+     * As there is no offset in the input, the scalars around the failing one are shown instead.
+     */
+    public static ParseException createFromScalarIndex(String fileName, String s, int lIndex, NodeContext ctx) {
+        lIndex = Math.max(0, Math.min(ctx.getLiteralsCount() - 1, lIndex));
+        var snippet = new StringBuilder();
+        for (int i = Math.max(0, lIndex - 5); i < Math.min(ctx.getLiteralsCount(), lIndex + 6); i++) {
+            if (!snippet.isEmpty()) {
+                snippet.append(' ');
+            }
+            snippet.append(ctx.evaluateRaw(i));
+        }
+        var msg = "Parser failed for " + fileName + " at scalar " + lIndex + ": " + s + "\n\n" + snippet;
+        return new ParseException(msg);
+    }
+
     public ParseException(String message) {
         super(message);
     }
@@ -0,0 +1,170 @@
+package com.crschnick.pdxu.io.parser;
+
+import com.crschnick.pdxu.io.node.ArrayNode;
+import com.crschnick.pdxu.io.node.NodeContext;
+import com.crschnick.pdxu.io.node.NodePointer;
+import com.crschnick.pdxu.io.node.TaggedNode;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds only the parts of the node tree that are matched by at least one pointer.
+ * Arrays on the way to a match only contain the matched entries, matched entries are built completely.
+ * All other arrays are skipped without creating any nodes.
+ * <p>
+ * Supported pointer elements are names, indices and wildcards. A pointer with an empty path matches the root,
+ * i.e. the complete tree is built.
+ */
+final class ProjectingTreeBuilder implements TextFormatHandler {
+
+    private final NodeTreeBuilder builder;
+    private final NodeContext context;
+    private final int pointerCount;
+    private final int[] pointerSizes;
+    private final boolean matchesRoot;
+
+    // Per pointer and depth, either the name bytes, the index or a wildcard
+    private final byte[][][] names;
+    private final int[][] indices;
+
+    // The pointers that are still matching at each open array level, as a bit set
+    private long[] active = new long[64];
+    private int[] entryCounts = new int[64];
+    private int depth;
+    private int fullDepth = -1;
+
+    ProjectingTreeBuilder(NodeContext context, List<NodePointer> pointers) {
+        if (pointers.size() > Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " pointers are supported");
+        }
+
+        this.builder = new NodeTreeBuilder(context);
+        this.context = context;
+        this.pointerCount = pointers.size();
+        this.pointerSizes = new int[pointerCount];
+        this.names = new byte[pointerCount][][];
+        this.indices = new int[pointerCount][];
+        this.matchesRoot = pointers.stream().anyMatch(p -> p.size() == 0);
+        for (int p = 0; p < pointerCount; p++) {
+            var path = pointers.get(p).getPath();
+            pointerSizes[p] = path.size();
+            names[p] = new byte[path.size()][];
+            indices[p] = new int[path.size()];
+            for (int e = 0; e < path.size(); e++) {
+                indices[p][e] = -1;
+                if (path.get(e) instanceof NodePointer.NameElement n) {
+                    names[p][e] = n.name().getBytes(context.getCharset());
+                } else if (path.get(e) instanceof NodePointer.IndexElement i) {
+                    indices[p][e] = i.index();
+                } else if (!(path.get(e) instanceof NodePointer.WildcardElement)) {
+                    throw new IllegalArgumentException("Unsupported pointer element " + path.get(e));
+                }
+            }
+        }
+    }
+
+    private boolean isKey(int keyIndex, byte[] name) {
+        if (keyIndex == -1 || context.getLiteralLength(keyIndex) != name.length) {
+            return false;
+        }
+
+        int start = context.getLiteralsBegin()[keyIndex];
+        return Arrays.equals(context.getData(), start, start + name.length, name, 0, name.length);
+    }
+
+    /**
+     * @return the pointers of the current level that match the next entry
+     */
+    private long matchEntry(int keyIndex) {
+        int level = depth - 1;
+        int entryIndex = entryCounts[level]++;
+        long matched = 0;
+        for (long remaining = active[level]; remaining != 0; remaining &= remaining - 1) {
+            int p = Long.numberOfTrailingZeros(remaining);
+            var name = names[p][level];
+            int index = indices[p][level];
+            boolean matches = name != null ? isKey(keyIndex, name) : index == -1 || index == entryIndex;
+            if (matches) {
+                matched |= 1L << p;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * @return whether any of the pointers ends at the current level
+     */
+    private boolean isComplete(long matched) {
+        for (long remaining = matched; remaining != 0; remaining &= remaining - 1) {
+            if (pointerSizes[Long.numberOfTrailingZeros(remaining)] == depth) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void push(long matched) {
+        if (depth == active.length) {
+            active = Arrays.copyOf(active, depth * 2);
+            entryCounts = Arrays.copyOf(entryCounts, depth * 2);
+        }
+        active[depth] = matched;
+        entryCounts[depth] = 0;
+        depth++;
+    }
+
+    @Override
+    public boolean startArray(int keyIndex, int size) throws ParseException {
+        if (depth == 0) {
+            push(pointerCount == Long.SIZE ? -1L : (1L << pointerCount) - 1);
+            if (matchesRoot) {
+                fullDepth = 0;
+            }
+            return builder.startArray(keyIndex, size);
+        }
+
+        if (fullDepth != -1) {
+            depth++;
+            return builder.startArray(keyIndex, size);
+        }
+
+        long matched = matchEntry(keyIndex);
+        if (matched == 0) {
+            return false;
+        }
+
+        if (isComplete(matched)) {
+            fullDepth = depth;
+        }
+        push(matched);
+        return builder.startArray(keyIndex, size);
+    }
+
+    @Override
+    public void endArray() throws ParseException {
+        depth--;
+        if (depth == fullDepth) {
+            fullDepth = -1;
+        }
+        builder.endArray();
+    }
+
+    @Override
+    public void scalar(int keyIndex, int valueIndex) throws ParseException {
+        if (fullDepth != -1 || isComplete(matchEntry(keyIndex))) {
+            builder.scalar(keyIndex, valueIndex);
+        }
+    }
+
+    @Override
+    public void tagged(int keyIndex, TaggedNode.TagType type, int valuesBegin, int valuesCount) throws ParseException {
+        if (fullDepth != -1 || isComplete(matchEntry(keyIndex))) {
+            builder.tagged(keyIndex, type, valuesBegin, valuesCount);
+        }
+    }
+
+    ArrayNode getResult() {
+        return builder.getResult();
+    }
+}
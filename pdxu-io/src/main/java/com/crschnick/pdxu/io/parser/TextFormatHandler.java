@@ -0,0 +1,31 @@
+package com.crschnick.pdxu.io.parser;
+
+import com.crschnick.pdxu.io.node.NodeContext;
+import com.crschnick.pdxu.io.node.TaggedNode;
+
+/**
+ * Receives the structure of a parsed input as a sequence of events, without building any nodes.
+ * Keys and values are passed as scalar indices, which can be evaluated with the context passed to {@link #begin(NodeContext)}.
+ * A key index of -1 means that the value has no key.
+ */
+public interface TextFormatHandler {
+
+    default void begin(NodeContext context) {
+    }
+
+    /**
+     * @param size the maximum amount of entries of the array
+     * @return whether to receive events for the array contents.
+     * If false, the contents are skipped and no matching {@link #endArray()} event is sent.
+     */
+    boolean startArray(int keyIndex, int size) throws ParseException;
+
+    void endArray() throws ParseException;
+
+    void scalar(int keyIndex, int valueIndex) throws ParseException;
+
+    /**
+     * @param valuesBegin the scalar index of the first tagged value. All tagged values are consecutive scalars
+     */
+    void tagged(int keyIndex, TaggedNode.TagType type, int valuesBegin, int valuesCount) throws ParseException;
+}
@@ -2,70 +2,98 @@ package com.crschnick.pdxu.io.parser;
 
 import com.crschnick.pdxu.io.node.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.function.Predicate;
 
+/**
+ * Parses the text format of the games. A parser only holds its configuration, all state of a parse
+ * is confined to the call, so one instance can be used by any number of threads at the same time.
+ * The factory methods therefore return one shared instance per game.
+ */
 public final class TextFormatParser {
 
+    private static final TextFormatParser TEXT = new TextFormatParser(StandardCharsets.UTF_8, TaggedNode.ALL, s -> true);
+
+    private static final TextFormatParser EU4 = new TextFormatParser(
+            Charset.forName("windows-1252"),
+            TaggedNode.NO_TAGS,
+            s -> s.equals("map_area_data"));
+
+    private static final TextFormatParser CK3 = new TextFormatParser(
+            StandardCharsets.UTF_8,
+            TaggedNode.COLORS,
+            s -> false);
+
+    private static final TextFormatParser VIC3 = new TextFormatParser(
+            StandardCharsets.UTF_8,
+            TaggedNode.ALL,
+            s -> false);
+
+    private static final TextFormatParser HOI4 = new TextFormatParser(
+            StandardCharsets.UTF_8,
+            TaggedNode.COLORS,
+            s -> false);
+
+    private static final TextFormatParser STELLARIS = new TextFormatParser(
+            StandardCharsets.UTF_8,
+            TaggedNode.COLORS,
+            s -> false);
+
+    private static final TextFormatParser CK2 = new TextFormatParser(
+            isMacOs() ? StandardCharsets.UTF_8 : Charset.forName("windows-1252"),
+            TaggedNode.NO_TAGS,
+            s -> false);
+
+    private static final TextFormatParser VIC2 = new TextFormatParser(
+            isMacOs() ? StandardCharsets.UTF_8 : Charset.forName("windows-1252"),
+            TaggedNode.NO_TAGS,
+            s -> false);
+
     public static TextFormatParser text() {
-        return new TextFormatParser(StandardCharsets.UTF_8, TaggedNode.ALL, s -> true);
+        return TEXT;
     }
 
     public static TextFormatParser eu4() {
-        return new TextFormatParser(
-                Charset.forName("windows-1252"),
-                TaggedNode.NO_TAGS,
-                s -> s.equals("map_area_data"));
+        return EU4;
     }
 
     public static TextFormatParser ck3() {
-        return new TextFormatParser(
-                StandardCharsets.UTF_8,
-                TaggedNode.COLORS,
-                s -> false);
+        return CK3;
     }
 
     public static TextFormatParser vic3() {
-        return new TextFormatParser(
-                StandardCharsets.UTF_8,
-                TaggedNode.ALL,
-                s -> false);
+        return VIC3;
     }
 
     public static TextFormatParser hoi4() {
-        return new TextFormatParser(
-                StandardCharsets.UTF_8,
-                TaggedNode.COLORS,
-                s -> false);
+        return HOI4;
     }
 
     public static TextFormatParser stellaris() {
-        return new TextFormatParser(
-                StandardCharsets.UTF_8,
-                TaggedNode.COLORS,
-                s -> false);
+        return STELLARIS;
     }
 
     public static TextFormatParser ck2() {
-        return new TextFormatParser(
-                isMacOs() ? StandardCharsets.UTF_8 : Charset.forName("windows-1252"),
-                TaggedNode.NO_TAGS,
-                s -> false);
+        return CK2;
     }
 
     public static TextFormatParser vic2() {
-        return new TextFormatParser(
-                isMacOs() ? StandardCharsets.UTF_8 : Charset.forName("windows-1252"),
-                TaggedNode.NO_TAGS,
-                s -> false);
+        return VIC2;
     }
 
     private static boolean isMacOs() {
@@ -73,32 +101,21 @@ public final class TextFormatParser {
         return osName.contains("mac") || osName.contains("darwin");
     }
 
+    /**
+     * The minimum file size from which on files are mapped into memory instead of being read onto the heap.
+     */
+    public static final long MAPPED_INPUT_MIN_SIZE = 16_000_000;
+
     private final Charset charset;
     private final TaggedNode.TagType[] possibleTags;
     private final Predicate<String> keyWithoutEquals;
 
-    private int index;
-    private int slIndex;
-    private int arrayIndex;
-    private int lastKnownOffset;
-    private TextFormatTokenizer tokenizer;
-    private NodeContext context;
-
     public TextFormatParser(Charset charset, TaggedNode.TagType[] possibleTags, Predicate<String> keyWithoutEquals) {
         this.charset = charset;
         this.possibleTags = possibleTags;
         this.keyWithoutEquals = keyWithoutEquals;
     }
 
-    private void reset() {
-        this.index = 0;
-        this.lastKnownOffset = 0;
-        this.slIndex = 0;
-        this.arrayIndex = 0;
-        this.tokenizer = null;
-        this.context = null;
-    }
-
     private void verifyTextFormat(byte[] input) throws ParseException {
         // People still try to open zip or rar files as text files
 
@@ -111,204 +128,249 @@ public final class TextFormatParser {
         }
     }
 
-    public final synchronized ArrayNode parse(Path file) throws IOException, ParseException {
-        return parse(file.getFileName().toString(), Files.readAllBytes(file), 0, false);
+    /**
+     * Checks the start of a stream and returns a stream that still contains all bytes of the input.
+     */
+    private InputStream verifyTextFormat(InputStream input) throws IOException, ParseException {
+        var start = input.readNBytes(8);
+        verifyTextFormat(start);
+        return new SequenceInputStream(new ByteArrayInputStream(start), input);
+    }
+
+    public final ArrayNode parse(Path file) throws IOException, ParseException {
+        return parse(file.getFileName().toString(), file, false);
     }
 
-    public final synchronized ArrayNode parse(String displayName, Path file, boolean strict) throws IOException, ParseException {
-        return parse(displayName, Files.readAllBytes(file), 0, strict);
+    /**
+     * Files of at least {@link #MAPPED_INPUT_MIN_SIZE} bytes are mapped into memory and parsed from there,
+     * so that they are never copied onto the heap as a whole. Smaller files are read completely.
+     */
+    public final ArrayNode parse(String displayName, Path file, boolean strict) throws IOException, ParseException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < MAPPED_INPUT_MIN_SIZE) {
+                return parse(displayName, Channels.newInputStream(channel).readAllBytes(), 0, strict);
+            }
+
+            return parse(displayName, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), strict);
+        }
     }
 
-    public final synchronized ArrayNode parse(String displayName, byte[] input, int start) throws ParseException {
+    /**
+     * Parses the remaining bytes of the buffer, which is usually a mapped file. The buffer is not modified.
+     * Like when parsing a stream, only the scalar bytes are copied for the created nodes.
+     */
+    public final ArrayNode parse(String name, ByteBuffer input, boolean strict) throws ParseException {
+        try {
+            var start = new byte[Math.min(8, input.remaining())];
+            input.get(input.position(), start);
+            verifyTextFormat(start);
+
+            var tokenizer = new TextFormatTokenizer(name, new BufferInputStream(input.slice()), strict);
+            tokenizer.tokenize();
+            return parseTokens(name, tokenizer.getData(), tokenizer, strict, true);
+        } catch (ParseException ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw createParseException(name, input.remaining(), t);
+        }
+    }
+
+    public final ArrayNode parse(String displayName, byte[] input, int start) throws ParseException {
         return parse(displayName, input, start, false);
     }
 
-    public final synchronized ArrayNode parse(String name, byte[] input, int start, boolean strict) throws ParseException {
+    public final ArrayNode parse(String name, byte[] input, int start, boolean strict) throws ParseException {
+        return parse(name, input, start, strict, false);
+    }
+
+    /**
+     * @param parallel whether to tokenize large inputs in parallel. Small inputs are always tokenized sequentially.
+     */
+    public final ArrayNode parse(String name, byte[] input, int start, boolean strict, boolean parallel) throws ParseException {
         try {
             verifyTextFormat(input);
 
-            this.tokenizer = new TextFormatTokenizer(name, input, start, strict);
-
             // var now = Instant.now();
-            this.tokenizer.tokenize();
+            TextFormatTokenizer tokenizer;
+            if (parallel) {
+                tokenizer = ParallelTextFormatTokenizer.tokenize(name, input, start, strict);
+            } else {
+                tokenizer = new TextFormatTokenizer(name, input, start, strict);
+                tokenizer.tokenize();
+            }
             // System.out.println("Tokenizer took " + ChronoUnit.MILLIS.between(now, Instant.now()) + "ms");
 
-            this.context = new NodeContext(input, charset,
-                    tokenizer.getScalarsStart(),
-                    tokenizer.getScalarsLength(),
-                    tokenizer.getScalarCount());
-
-            // now = Instant.now();
-            ArrayNode r = parseArray(name, strict);
-            // System.out.println("Node creator took " + ChronoUnit.MILLIS.between(now, Instant.now()) + "ms");
-
-            return r;
+            return parseTokens(name, input, tokenizer, strict, true);
         } catch (ParseException ex) {
             throw ex;
         }  catch (Throwable t) {
-            // Catch also errors!
+            throw createParseException(name, input.length, t);
+        }
+    }
 
-            // Special case for out of memory
-            if (t instanceof OutOfMemoryError ooe) {
-                throw new ParseException("Not enough free RAM available to load file " + name + " with size " + (input.length / 1_000_000) + "Mb.", ooe);
+    /**
+     * Only builds the top level array. All arrays inside it are only built when they are accessed for the first time,
+     * which requires the tokens of the input to be kept in memory as long as any of these arrays is reachable.
+     * The input is still read completely, so errors are reported immediately.
+     */
+    public final ArrayNode parseLazily(String name, byte[] input, int start, boolean strict, boolean parallel) throws ParseException {
+        try {
+            verifyTextFormat(input);
+
+            TextFormatTokenizer tokenizer;
+            if (parallel) {
+                tokenizer = ParallelTextFormatTokenizer.tokenize(name, input, start, strict);
+            } else {
+                tokenizer = new TextFormatTokenizer(name, input, start, strict);
+                tokenizer.tokenize();
             }
 
-            throw new ParseException(t);
-        } finally {
-            // Always reset!
-            reset();
+            var context = createContext(input, tokenizer);
+            return new LazyTokenLoader(name, strict, tokenizer, context, possibleTags, keyWithoutEquals).loadRoot();
+        } catch (ParseException ex) {
+            throw ex;
+        }  catch (Throwable t) {
+            throw createParseException(name, input.length, t);
         }
     }
 
-    private void updateLastKnownOffset() {
-        this.lastKnownOffset = context.getLiteralsBegin()[slIndex] + context.getLiteralsLength()[slIndex];
+    /**
+     * Parses the input while it is being read, without ever holding all of it in memory.
+     * Only the scalar bytes are kept for the created nodes, which is useful for large compressed entries.
+     * The stream is not closed.
+     */
+    public final ArrayNode parse(String name, InputStream input, boolean strict) throws IOException, ParseException {
+        input = verifyTextFormat(input);
+        try {
+            var tokenizer = new TextFormatTokenizer(name, input, strict);
+            tokenizer.tokenize();
+            return parseTokens(name, tokenizer.getData(), tokenizer, strict, true);
+        } catch (ParseException ex) {
+            throw ex;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } catch (Throwable t) {
+            throw createParseException(name, -1, t);
+        }
     }
 
-    private Node parseNodeIfNotScalarValue(String name, boolean strict) throws ParseException {
-        var tt = tokenizer.getTokenTypes();
-        if (tt[index] == TextFormatTokenizer.STRING_UNQUOTED) {
-            var colorType = tt[index + 1] == TextFormatTokenizer.OPEN_GROUP ?
-                    TaggedNode.getTagType(possibleTags, context, slIndex) : null;
-
-            if (colorType != null) {
-                if (tt[index + 1] != TextFormatTokenizer.OPEN_GROUP) {
-                    throw ParseException.createFromLiteralIndex(name, "Expected {", slIndex, context);
-                }
-
-                // Move over color id
-                index++;
-                moveToNextScalar();
-
-                // Move over opening {
-                index++;
+    public final ArrayNode parse(String name, ReadableByteChannel channel, boolean strict) throws IOException, ParseException {
+        return parse(name, Channels.newInputStream(channel), strict);
+    }
 
-                List<ValueNode> components = new ArrayList<>();
-                while (tt[index] != TextFormatTokenizer.CLOSE_GROUP) {
-                    components.add(new ValueNode(context, slIndex));
-                    moveToNextScalar();
-                    index++;
-                }
+    /**
+     * Passes the structure of the input to the handler instead of building nodes.
+     * Arrays that the handler is not interested in are skipped without looking at their contents.
+     */
+    public final void parse(String name, byte[] input, int start, boolean strict, TextFormatHandler handler) throws ParseException {
+        try {
+            verifyTextFormat(input);
 
-                // Move over closing }
-                index++;
+            var tokenizer = new TextFormatTokenizer(name, input, start, strict);
+            tokenizer.tokenize();
+            readTokens(name, createContext(input, tokenizer), tokenizer, strict, handler);
+            tokenizer.releaseArrays();
+        } catch (ParseException ex) {
+            throw ex;
+        }  catch (Throwable t) {
+            throw createParseException(name, input.length, t);
+        }
+    }
 
-                // A color is also an array, so we have to move the array index!
-                arrayIndex++;
+    /**
+     * Only builds the nodes that are matched by at least one of the pointers, including the arrays on the way to them.
+     * Pointers can consist of names, indices and wildcards.
+     * All other arrays are skipped, which makes this a lot cheaper than a full parse when only a few values are needed.
+     */
+    public final ArrayNode parse(String name, byte[] input, int start, boolean strict, List<NodePointer> projection) throws ParseException {
+        try {
+            verifyTextFormat(input);
 
-                return new TaggedNode(colorType, components);
-            }
-        } else {
-            if (tt[index] == TextFormatTokenizer.EQUALS) {
-                throw ParseException.createFromLiteralIndex(name, "encountered unexpected =", slIndex, context);
-            }
-            if (tt[index] == TextFormatTokenizer.CLOSE_GROUP) {
-                throw ParseException.createFromLiteralIndex(name, "encountered unexpected }", slIndex, context);
-            }
-            if (tt[index] == TextFormatTokenizer.OPEN_GROUP) {
-                return parseArray(name, strict);
-            }
+            var tokenizer = new TextFormatTokenizer(name, input, start, strict);
+            tokenizer.tokenize();
+            var context = createContext(input, tokenizer);
+            var builder = new ProjectingTreeBuilder(context, projection);
+            readTokens(name, context, tokenizer, strict, builder);
+            tokenizer.releaseArrays();
+            return builder.getResult();
+        } catch (ParseException ex) {
+            throw ex;
+        }  catch (Throwable t) {
+            throw createParseException(name, input.length, t);
         }
-
-        return null;
     }
 
-    private void moveToNextScalar() {
-        slIndex++;
-        updateLastKnownOffset();
+    public final void parse(String name, InputStream input, boolean strict, TextFormatHandler handler) throws IOException, ParseException {
+        input = verifyTextFormat(input);
+        try {
+            var tokenizer = new TextFormatTokenizer(name, input, strict);
+            tokenizer.tokenize();
+            readTokens(name, createContext(tokenizer.getData(), tokenizer), tokenizer, strict, handler);
+            tokenizer.releaseArrays();
+        } catch (ParseException ex) {
+            throw ex;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } catch (Throwable t) {
+            throw createParseException(name, -1, t);
+        }
     }
 
-    private void skipOverNextNode(String name, boolean strict) throws ParseException {
-        var res = parseNodeIfNotScalarValue(name, strict);
-
-        // Node is a scalar, therefore move manually
-        if (res == null) {
-            index++;
-            slIndex++;
+    /**
+     * Builds the node tree from an input that has already been tokenized.
+     * This is mainly useful to measure the node creation separately from the tokenization.
+     */
+    public final ArrayNode parse(String name, byte[] input, TextFormatTokenizer tokenizer, boolean strict) throws ParseException {
+        try {
+            return parseTokens(name, input, tokenizer, strict, false);
+        } catch (ParseException ex) {
+            throw ex;
+        }  catch (Throwable t) {
+            throw createParseException(name, input.length, t);
         }
     }
 
-    private ArrayNode parseArray(String name, boolean strict) throws ParseException {
-        var tt = tokenizer.getTokenTypes();
-
-        assert tt[index] == TextFormatTokenizer.OPEN_GROUP : "Expected {";
-        index++;
-
-        var size = tokenizer.getArraySizes()[arrayIndex++];
-        var builder = new ArrayNode.Builder(context, size);
-        while (true) {
-            assert index < tt.length : "Reached EOF but found no closing group token";
+    /**
+     * @param release whether the tokenizer was only created for this parse, so that its arrays can be reused afterwards
+     */
+    private ArrayNode parseTokens(String name, byte[] input, TextFormatTokenizer tokenizer, boolean strict, boolean release) throws ParseException {
+        var context = createContext(input, tokenizer);
+        var builder = new NodeTreeBuilder(context);
 
-            // Check for missing keys (only in non-strict mode)
-            boolean isMissingKey = tt[index] == TextFormatTokenizer.EQUALS;
-            if (!strict && isMissingKey) {
-                // Move over =
-                index++;
+        // var now = Instant.now();
+        readTokens(name, context, tokenizer, strict, builder);
+        // System.out.println("Node creator took " + ChronoUnit.MILLIS.between(now, Instant.now()) + "ms");
 
-                // Discard next node if there is one!
-                if (tt[index] != TextFormatTokenizer.CLOSE_GROUP) {
-                    skipOverNextNode(name, strict);
-                }
-            }
+        if (release) {
+            tokenizer.releaseArrays();
+        }
+        return builder.getResult();
+    }
 
-            if (tt[index] == TextFormatTokenizer.CLOSE_GROUP) {
-                assert size >= builder.getUsedSize() :
-                        "Invalid array size. Expected: <= " + size + ", got: " + builder.getUsedSize();
-                index++;
-                return builder.build();
-            }
+    private NodeContext createContext(byte[] input, TextFormatTokenizer tokenizer) {
+        return new NodeContext(input, charset,
+                tokenizer.getScalarsStart(),
+                tokenizer.getScalarsLength(),
+                tokenizer.getLongScalarsLength(),
+                tokenizer.getScalarCount());
+    }
 
-            boolean isKeyValue = tt[index + 1] == TextFormatTokenizer.EQUALS;
-            if (isKeyValue) {
-                if (tt[index] != TextFormatTokenizer.STRING_UNQUOTED &&
-                        tt[index] != TextFormatTokenizer.STRING_QUOTED) {
-                    throw ParseException.createFromOffset(name, "Expected key", lastKnownOffset, context.getData());
-                }
-
-                int keyIndex = slIndex;
-                moveToNextScalar();
-                index += 2;
-
-                Node result = parseNodeIfNotScalarValue(name, strict);
-                if (result == null) {
-                    // System.out.println("key: " + context.evaluate(keyIndex));
-                    // System.out.println("val: " + context.evaluate(slIndex));
-
-                    builder.putKeyAndScalarValue(keyIndex, slIndex);
-                    index++;
-                    moveToNextScalar();
-                } else {
-                    // System.out.println("key: " + context.evaluate(keyIndex));
-                    // System.out.println("val: " + result.toString());
-
-                    builder.putKeyAndNodeValue(keyIndex, result);
-                }
-
-                continue;
-            }
+    private void readTokens(String name, NodeContext context, TextFormatTokenizer tokenizer, boolean strict, TextFormatHandler handler) throws ParseException {
+        new TokenReader(name, strict, tokenizer, context, possibleTags, keyWithoutEquals).read(handler);
+    }
 
-            boolean isKeyValueWithoutEquals = tt[index] == TextFormatTokenizer.STRING_UNQUOTED &&
-                    tt[index + 1] == TextFormatTokenizer.OPEN_GROUP;
-            if (isKeyValueWithoutEquals && keyWithoutEquals.test(context.evaluate(slIndex))) {
-                int keyIndex = slIndex;
-                moveToNextScalar();
-                index++;
-                Node result = parseNodeIfNotScalarValue(name, strict);
-                assert result != null : "KeyValue without equal sign must be an array node";
-                builder.putKeyAndNodeValue(keyIndex, result);
-
-                continue;
-            }
+    private ParseException createParseException(String name, long size, Throwable t) {
+        // Catch also errors!
 
-            // Parse unnamed array element
-            Node result = parseNodeIfNotScalarValue(name, strict);
-            if (result == null) {
-                builder.putScalarValue(slIndex);
-                index++;
-                moveToNextScalar();
-            } else {
-                builder.putNodeValue(result);
+        // Special case for out of memory
+        if (t instanceof OutOfMemoryError ooe) {
+            if (size < 0) {
+                return new ParseException("Not enough free RAM available to load file " + name + ".", ooe);
             }
+            return new ParseException("Not enough free RAM available to load file " + name + " with size " + (size / 1_000_000) + "Mb.", ooe);
         }
+
+        return new ParseException(t);
     }
 
     public Charset getCharset() {
@@ -1,7 +1,12 @@
 package com.crschnick.pdxu.io.parser;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 import java.util.Arrays;
-import java.util.Stack;
 
 public class TextFormatTokenizer {
 
@@ -15,6 +20,15 @@ public class TextFormatTokenizer {
     private static final byte SPACE_CHAR = 32;
     private static final byte EQUALS_CHAR = 61;
 
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private static final int STREAM_WINDOW_SIZE = 1 << 16;
+    private static final int SAMPLE_SIZE = 1 << 20;
+    static final int MAX_LONG_SCALARS = 1 << 15;
+    private static final int[] NO_LONG_SCALARS = new int[0];
+
     private static final byte[] UTF_8_BOM = new byte[]{
             (byte) 0xEF,
             (byte) 0xBB,
@@ -23,11 +37,25 @@ public class TextFormatTokenizer {
 
     private final String name;
     private final boolean strict;
-    private final byte[] bytes;
+    private final boolean wordScan;
+    private final boolean continuation;
+    private final InputStream input;
+    private byte[] bytes;
+    private int begin;
+    private int end;
+    private boolean inputFinished;
+    // Position of the window in the stream and the number of lines in front of it, used for error messages
+    private long windowOffset;
+    private int windowLine;
+    private byte[] scalarData;
+    private int scalarDataSize;
     private byte[] tokenTypes;
     private int[] scalarsStart;
     private short[] scalarsLength;
-    private final Stack<Integer> arraySizeStack;
+    private int[] longScalarsLength = NO_LONG_SCALARS;
+    private int longScalarCounter;
+    private int[] arraySizeStack;
+    private int arraySizeStackSize;
     private int[] arraySizes;
     private boolean isInQuotes;
     private boolean isInBlock;
@@ -38,102 +66,405 @@ public class TextFormatTokenizer {
     private int scalarCounter;
     private int arraySizesCounter;
     private boolean escapeChar;
+    private boolean endedAtTopLevel;
+    private boolean topLevelSizeUnderflow;
 
     public TextFormatTokenizer(String name, byte[] bytes, int start, boolean strict) {
+        this(name, bytes, start, strict, true);
+    }
+
+    /**
+     * @param wordScan whether to skip over bytes that can not change the tokenizer state eight bytes at a time.
+     *                 Disabling it will examine every byte individually, the produced tokens are the same in both cases.
+     */
+    public TextFormatTokenizer(String name, byte[] bytes, int start, boolean strict, boolean wordScan) {
+        this(name, bytes, start, bytes.length, strict, wordScan, false);
+    }
+
+    /**
+     * Creates a tokenizer for the range from start to end of the input only.
+     * A continuation tokenizer assumes that the range starts at the top level of the input,
+     * which can be checked afterwards with {@link #endedAtTopLevel()} of the tokenizer for the previous range.
+     */
+    TextFormatTokenizer(String name, byte[] bytes, int start, int end, boolean strict, boolean wordScan, boolean continuation) {
         this.name = name;
+        this.input = null;
         this.bytes = bytes;
+        this.end = end;
         this.strict = strict;
+        this.wordScan = wordScan;
+        this.continuation = continuation;
         this.tokenCounter = 0;
 
+        int length = continuation || end != bytes.length ? end - start : bytes.length;
         int maxTokenCount;
         int maxNodeCount;
-        if (bytes.length < 300) {
+        int maxArrayCount;
+        if (length < 300) {
             // Special case for small files
 
             // Add 2 to include open and close group tokens that are always added
-            maxTokenCount = bytes.length + 2;
+            maxTokenCount = length + 2;
 
             // Add 1 in case bytes.length is 0. We then still have one empty array node
-            maxNodeCount = bytes.length + 1;
+            maxNodeCount = length + 1;
+            maxArrayCount = length + 1;
         } else {
-            // Pessimistic assumptions, should always hold!
-
-            maxTokenCount = bytes.length / 2;
-            maxNodeCount = bytes.length / 4;
+            // Estimate from a prefix, but never exceed the pessimistic assumptions of length / 2 tokens and length / 4 nodes.
+            // Arrays grow if the estimate turns out to be too small
+            var estimate = estimateCounts(bytes, start, end, length);
+            maxTokenCount = Math.min(estimate[0], length / 2);
+            maxNodeCount = Math.min(estimate[1], length / 4);
+            maxArrayCount = Math.min(estimate[2], length / 4);
         }
 
-        this.tokenTypes = new byte[maxTokenCount];
+        var buffers = TokenizerArrayPool.acquire(maxTokenCount, maxArrayCount);
+        this.tokenTypes = buffers.tokenTypes();
         this.scalarsStart = new int[maxNodeCount];
         this.scalarsLength = new short[maxNodeCount];
-        this.arraySizes = new int[maxNodeCount];
+        this.arraySizes = buffers.arraySizes();
 
-        this.arraySizeStack = new Stack<>();
+        this.arraySizeStack = new int[64];
         this.arraySizesCounter = 0;
 
+        this.begin = start;
         this.i = start;
         this.nextScalarStart = start;
     }
 
-    private void checkResize() {
-        var maxTokenCount = tokenTypes.length;
-        var maxNodeCount = scalarsStart.length;
-        if (this.tokenCounter >= maxTokenCount || this.scalarCounter >= maxNodeCount) {
-            resize();
+    /**
+     * Counts the tokens, scalars and arrays in a prefix of the input and extrapolates them to the entire length.
+     * Quoted scalars that contain whitespace are counted multiple times, which only makes the estimate larger.
+     *
+     * @return the estimated token, scalar, and array counts, including some headroom
+     */
+    private static int[] estimateCounts(byte[] bytes, int start, int end, int length) {
+        int sampleEnd = Math.min(end, start + SAMPLE_SIZE);
+        long controls = 0;
+        long scalars = 0;
+        long arrays = 0;
+        boolean inScalar = false;
+        for (int j = start; j < sampleEnd; j++) {
+            byte b = bytes[j];
+            if (b == '{' || b == '}' || b == '=') {
+                controls++;
+                if (b == '{') {
+                    arrays++;
+                }
+                inScalar = false;
+            } else if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                inScalar = false;
+            } else if (!inScalar) {
+                scalars++;
+                inScalar = true;
+            }
         }
+
+        double scale = 1.1 * length / Math.max(1, sampleEnd - start);
+        return new int[] {
+                (int) Math.min(Integer.MAX_VALUE - 8, (long) ((controls + scalars) * scale) + 1024),
+                (int) Math.min(Integer.MAX_VALUE - 8, (long) (scalars * scale) + 1024),
+                (int) Math.min(Integer.MAX_VALUE - 8, (long) (arrays * scale) + 1024)
+        };
     }
 
-    private void resize() {
-        var maxTokenCount = tokenTypes.length;
-        var maxNodeCount = scalarsStart.length;
+    /**
+     * Creates a tokenizer that reads its input incrementally into a fixed size window instead of requiring all bytes at once.
+     * Only the bytes of scalars are retained, which are available through {@link #getData()} after tokenizing.
+     * Note that the stream is not closed by the tokenizer.
+     */
+    public TextFormatTokenizer(String name, InputStream input, boolean strict) {
+        this.name = name;
+        this.input = input;
+        this.bytes = new byte[STREAM_WINDOW_SIZE];
+        this.end = 0;
+        this.strict = strict;
+        this.wordScan = true;
+        this.continuation = false;
+        this.scalarData = new byte[STREAM_WINDOW_SIZE];
+
+        // The final size is unknown, so start small and grow as needed
+        var buffers = TokenizerArrayPool.acquire(STREAM_WINDOW_SIZE, STREAM_WINDOW_SIZE / 2);
+        this.tokenTypes = buffers.tokenTypes();
+        this.scalarsStart = new int[STREAM_WINDOW_SIZE / 2];
+        this.scalarsLength = new short[STREAM_WINDOW_SIZE / 2];
+        this.arraySizes = buffers.arraySizes();
+        this.arraySizeStack = new int[64];
+    }
 
-        var tokenTypes = new byte[maxTokenCount * 2];
-        System.arraycopy(this.tokenTypes, 0, tokenTypes, 0, maxTokenCount);
+    /**
+     * Creates an already tokenized instance from existing token arrays.
+     */
+    TextFormatTokenizer(String name, byte[] bytes, byte[] tokenTypes, int tokenCount, int[] scalarsStart, short[] scalarsLength, int scalarCount,
+                        int[] longScalarsLength, int longScalarCount, int[] arraySizes) {
+        this.name = name;
+        this.input = null;
+        this.bytes = bytes;
+        this.end = bytes.length;
+        this.strict = false;
+        this.wordScan = true;
+        this.continuation = false;
         this.tokenTypes = tokenTypes;
-
-        var scalarsStart = new int[maxNodeCount * 2];
-        System.arraycopy(this.scalarsStart, 0, scalarsStart, 0, maxNodeCount);
         this.scalarsStart = scalarsStart;
-
-        var scalarsLength = new short[maxNodeCount * 2];
-        System.arraycopy(this.scalarsLength, 0, scalarsLength, 0, maxNodeCount);
         this.scalarsLength = scalarsLength;
-
-        var arraySizes = new int[maxNodeCount * 2];
-        System.arraycopy(this.arraySizes, 0, arraySizes, 0, maxNodeCount);
+        this.scalarCounter = scalarCount;
+        this.longScalarsLength = longScalarsLength;
+        this.longScalarCounter = longScalarCount;
         this.arraySizes = arraySizes;
+        this.arraySizesCounter = arraySizes.length;
+        this.tokenCounter = tokenCount;
+    }
+
+    private void checkResize() {
+        // One iteration can add a scalar and a control token, the parser also looks ahead by one scalar
+        if (tokenCounter + 2 >= tokenTypes.length) {
+            tokenTypes = Arrays.copyOf(tokenTypes, grow(tokenTypes.length, tokenCounter));
+        }
+        if (scalarCounter + 1 >= scalarsStart.length) {
+            int length = grow(scalarsStart.length, scalarCounter);
+            scalarsStart = Arrays.copyOf(scalarsStart, length);
+            scalarsLength = Arrays.copyOf(scalarsLength, length);
+        }
+        if (arraySizesCounter >= arraySizes.length) {
+            arraySizes = Arrays.copyOf(arraySizes, grow(arraySizes.length, arraySizesCounter));
+        }
+    }
+
+    /**
+     * Extrapolates the count so far to the remaining input if its size is known, so that an array usually only has to grow once.
+     */
+    private int grow(int capacity, int count) {
+        long grown = capacity * 2L;
+        if (input == null && i > begin) {
+            long remaining = end - i;
+            grown = Math.max(capacity + capacity / 4, count + (long) (1.1 * count * remaining / (i - begin)) + 1024);
+        }
+        return (int) Math.min(Integer.MAX_VALUE - 8, grown);
+    }
+
+    /**
+     * The scalar arrays are referenced by the created nodes, so they are trimmed if the estimate was too large.
+     * One additional scalar is kept as the parser looks ahead by one.
+     */
+    private void trimScalarArrays() {
+        int length = scalarCounter + 1;
+        if (scalarsStart.length > length + length / 8 + 1024) {
+            scalarsStart = Arrays.copyOf(scalarsStart, length);
+            scalarsLength = Arrays.copyOf(scalarsLength, length);
+        }
+    }
+
+    /**
+     * Returns the arrays that are only needed while reading the tokens to the pool of the current thread.
+     * The tokenizer can not be used anymore afterwards.
+     */
+    void releaseArrays() {
+        TokenizerArrayPool.release(tokenTypes, arraySizes);
+        tokenTypes = null;
+        arraySizes = null;
+    }
+
+    private void pushArraySize(int arraySizeIndex) {
+        if (arraySizeStackSize == arraySizeStack.length) {
+            arraySizeStack = Arrays.copyOf(arraySizeStack, arraySizeStack.length * 2);
+        }
+        arraySizeStack[arraySizeStackSize++] = arraySizeIndex;
+    }
+
+    private int peekArraySize() {
+        return arraySizeStack[arraySizeStackSize - 1];
     }
 
     private void checkBom() {
-        if (bytes.length >= 3 && Arrays.equals(bytes, 0, 3, UTF_8_BOM, 0, 3)) {
+        if (end >= 3 && Arrays.equals(bytes, 0, 3, UTF_8_BOM, 0, 3)) {
             this.nextScalarStart += 3;
             this.i += 3;
         }
     }
 
+    /**
+     * In stream mode, the offset is relative to the current window, so only the window is shown
+     * and the reported offset and line are those in the entire stream.
+     */
+    private ParseException createParseException(String message, int offset) {
+        if (input == null) {
+            return ParseException.createFromOffset(name, message, offset, bytes);
+        }
+
+        return ParseException.createFromOffset(name, message, offset, Arrays.copyOf(bytes, end), windowOffset, windowLine);
+    }
+
     private void checkUnclosedArrays() throws ParseException {
-        if (strict && arraySizeStack.size() > 1) {
-            throw ParseException.createFromOffset(name, "Missing closing } at the end of the file", i - 1, bytes);
+        if (strict && arraySizeStackSize > 1) {
+            throw createParseException("Missing closing } at the end of the file", i - 1);
         }
 
-        for (int i = 1; i < arraySizeStack.size(); i++) {
+        if (tokenCounter + arraySizeStackSize >= tokenTypes.length) {
+            tokenTypes = Arrays.copyOf(tokenTypes, tokenCounter + arraySizeStackSize + 1);
+        }
+        for (int i = 1; i < arraySizeStackSize; i++) {
             tokenTypes[tokenCounter] = CLOSE_GROUP;
             tokenCounter++;
         }
-        arraySizeStack.clear();
+        arraySizeStackSize = 0;
     }
 
     public void tokenize() throws ParseException {
         tokenTypes[0] = OPEN_GROUP;
         arraySizes[0] = 0;
-        arraySizeStack.add(0);
+        pushArraySize(0);
         arraySizesCounter++;
         tokenCounter = 1;
-        checkBom();
-        for (; i <= bytes.length; i++) {
+        if (input != null) {
+            fill();
+        }
+        if (!continuation) {
+            checkBom();
+        }
+        for (; i <= end; i++) {
+            if (wordScan) {
+                skipIrrelevantBytes();
+            }
+
+            // Always keep the successor byte in the window, the current position is examined again after filling it
+            if (input != null && !inputFinished && i + 1 >= end) {
+                fill();
+                i--;
+                continue;
+            }
             tokenizeIteration();
         }
+        endedAtTopLevel = !isInQuotes && !isInBlock && !isInComment && arraySizeStackSize == 1;
         checkUnclosedArrays();
         tokenTypes[tokenCounter] = CLOSE_GROUP;
+        trimScalarArrays();
+    }
+
+    /**
+     * Discards all bytes in front of the current scalar and the previous byte and reads new data into the freed space.
+     * The window is only enlarged if there is nothing to discard, i.e. the current scalar spans the entire window.
+     */
+    private void fill() {
+        int discard = Math.max(0, Math.min(nextScalarStart, i - 1));
+        if (discard > 0) {
+            for (int j = 0; j < discard; j++) {
+                if (bytes[j] == '\n') {
+                    windowLine++;
+                }
+            }
+            windowOffset += discard;
+            System.arraycopy(bytes, discard, bytes, 0, end - discard);
+            end -= discard;
+            i -= discard;
+            nextScalarStart -= discard;
+        } else if (end == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+
+        try {
+            int read = input.readNBytes(bytes, end, bytes.length - end);
+            end += read;
+            inputFinished = end < bytes.length;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int appendScalarData(int start, int length) {
+        if (scalarDataSize + length > scalarData.length) {
+            scalarData = Arrays.copyOf(scalarData, Math.max(scalarData.length * 2, scalarDataSize + length));
+        }
+        System.arraycopy(bytes, start, scalarData, scalarDataSize, length);
+        int offset = scalarDataSize;
+        scalarDataSize += length;
+        return offset;
+    }
+
+    private static long matchesByte(long word, byte b) {
+        long x = word ^ (ONES * (b & 0xFF));
+        return (x - ONES) & ~x & HIGH_BITS;
+    }
+
+    private static long matchesLessThan(long word, int n) {
+        return (word - ONES * n) & ~word & HIGH_BITS;
+    }
+
+    private static boolean isStructural(byte b) {
+        return (b & 0xFF) < '$' || b == '=' || b == '{' || b == '}' || b == '[';
+    }
+
+    /**
+     * Moves to the next byte that can change the state of the tokenizer.
+     * All skipped bytes are either part of the current scalar, a comment, or a whitespace run
+     * and would have been no-ops in {@link #tokenizeIteration()}.
+     */
+    private void skipIrrelevantBytes() {
+        if (isInComment) {
+            i = indexOf((byte) '\n', (byte) '\n', i);
+            return;
+        }
+
+        if (isInQuotes) {
+            // The byte after an escape char always has to be examined
+            if (!escapeChar) {
+                i = indexOf((byte) '"', (byte) '\\', i);
+            }
+            return;
+        }
+
+        if (isInBlock) {
+            i = indexOf((byte) ']', (byte) '"', i);
+            return;
+        }
+
+        // Whitespace runs after a finished token do not produce anything
+        while (i < end && nextScalarStart == i && isWhitespace(bytes[i])) {
+            i++;
+            nextScalarStart = i;
+        }
+
+        // Any byte that is not whitespace or a special character is part of the current scalar
+        int j = i;
+        for (; j + Long.BYTES <= end; j += Long.BYTES) {
+            long word = (long) LONG_VIEW.get(bytes, j);
+            // Bytes lower than $ include all whitespace characters as well as " and #
+            long found = matchesLessThan(word, '$') |
+                    matchesByte(word, (byte) '=') |
+                    matchesByte(word, (byte) '{') |
+                    matchesByte(word, (byte) '}') |
+                    matchesByte(word, (byte) '[');
+            if (found != 0) {
+                i = j + (Long.numberOfTrailingZeros(found) >>> 3);
+                return;
+            }
+        }
+        for (; j < end; j++) {
+            if (isStructural(bytes[j])) {
+                break;
+            }
+        }
+        i = j;
+    }
+
+    private int indexOf(byte first, byte second, int from) {
+        int j = from;
+        for (; j + Long.BYTES <= end; j += Long.BYTES) {
+            long word = (long) LONG_VIEW.get(bytes, j);
+            long found = matchesByte(word, first) | matchesByte(word, second);
+            if (found != 0) {
+                return j + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; j < end; j++) {
+            if (bytes[j] == first || bytes[j] == second) {
+                return j;
+            }
+        }
+        return end;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == '\n' || b == '\r' || b == ' ' || b == '\t';
     }
 
     private void moveScalarStartToNext() {
@@ -225,15 +556,7 @@ public class TextFormatTokenizer {
             return;
         }
 
-        short length = (short) ((endExclusive - 1) - nextScalarStart + 1);
-
-        // Check for length overflow
-        if (length < 0) {
-            throw ParseException.createFromOffset(name,
-                                                  "Encountered scalar with length " + ((endExclusive - 1) - nextScalarStart + 1) +
-                                                          ", which is too big", nextScalarStart, bytes
-            );
-        }
+        int length = endExclusive - nextScalarStart;
 
         assert length > 0 : "Scalar must be of length at least 1";
 
@@ -242,22 +565,42 @@ public class TextFormatTokenizer {
         } else {
             tokenTypes[tokenCounter++] = STRING_UNQUOTED;
         }
-        scalarsStart[scalarCounter] = nextScalarStart;
-        scalarsLength[scalarCounter] = length;
+        scalarsStart[scalarCounter] = input != null ? appendScalarData(nextScalarStart, length) : nextScalarStart;
+        scalarsLength[scalarCounter] = length <= Short.MAX_VALUE ? (short) length : addLongScalar(length);
         scalarCounter++;
 
-        assert arraySizeStack.size() > 0 : "Encountered unexpectedly large array at index " + endExclusive;
-        arraySizes[arraySizeStack.peek()]++;
+        assert arraySizeStackSize > 0 : "Encountered unexpectedly large array at index " + endExclusive;
+        arraySizes[peekArraySize()]++;
 
         nextScalarStart = endExclusive;
     }
 
+    /**
+     * Stores the length of a scalar that does not fit into a short in the overflow table.
+     *
+     * @return the encoded reference to the overflow table entry
+     */
+    private short addLongScalar(int length) throws ParseException {
+        if (longScalarCounter == MAX_LONG_SCALARS) {
+            throw createParseException("Encountered more than " + MAX_LONG_SCALARS + " scalars with a length of over " +
+                    Short.MAX_VALUE + " bytes", nextScalarStart);
+        }
+
+        if (longScalarCounter == longScalarsLength.length) {
+            longScalarsLength = Arrays.copyOf(longScalarsLength, Math.max(8, longScalarCounter * 2));
+        }
+        longScalarsLength[longScalarCounter] = length;
+        return (short) -(++longScalarCounter);
+    }
+
     private byte getSuccessorByte() {
-        return i == bytes.length - 1 ? 0 : bytes[i + 1];
+        int limit = input != null ? end : bytes.length;
+        return i >= limit - 1 ? 0 : bytes[i + 1];
     }
 
     private void setSuccessorByte(byte b) {
-        if (i < bytes.length - 1) {
+        int limit = input != null ? end : bytes.length;
+        if (i < limit - 1) {
             bytes[i + 1] = b;
         }
     }
@@ -305,9 +648,9 @@ public class TextFormatTokenizer {
         if (controlToken == CLOSE_GROUP) {
             // Special case for additional close group token on top level
             // Happens in CK2 and VIC2
-            if (arraySizeStack.size() == 1) {
+            if (arraySizeStackSize == 1) {
                 if (strict) {
-                    throw ParseException.createFromOffset(name, "Additional closing } at the of the file", i, bytes);
+                    throw createParseException("Additional closing } at the of the file", i);
                 }
 
                 return;
@@ -315,25 +658,32 @@ public class TextFormatTokenizer {
 
             if (getSuccessorByte() == EQUALS) {
                 if (strict) {
-                    throw ParseException.createFromOffset(name, "Invalid key name }", i, bytes);
+                    throw createParseException("Invalid key name }", i);
                 }
 
                 setSuccessorByte(SPACE_CHAR);
                 return;
             }
 
-            arraySizeStack.pop();
+            arraySizeStackSize--;
         } else if (controlToken == EQUALS) {
-            if (strict && arraySizes[arraySizeStack.peek()] == 0) {
-                throw ParseException.createFromOffset(name, "Encountered invalid =", i, bytes);
+            if (arraySizeStackSize == 1 && arraySizes[peekArraySize()] == 0) {
+                topLevelSizeUnderflow = true;
+            }
+
+            if (strict && arraySizes[peekArraySize()] == 0) {
+                throw createParseException("Encountered invalid =", i);
             }
 
-            if (arraySizes[arraySizeStack.peek()] > 0) {
-                arraySizes[arraySizeStack.peek()]--;
+            if (arraySizes[peekArraySize()] > 0) {
+                arraySizes[peekArraySize()]--;
             }
         } else if (controlToken == OPEN_GROUP) {
-            arraySizes[arraySizeStack.peek()]++;
-            arraySizeStack.add(arraySizesCounter++);
+            arraySizes[peekArraySize()]++;
+
+            // Pooled arrays are not cleared
+            arraySizes[arraySizesCounter] = 0;
+            pushArraySize(arraySizesCounter++);
         }
 
         tokenTypes[tokenCounter++] = controlToken;
@@ -349,7 +699,9 @@ public class TextFormatTokenizer {
 
     private void tokenizeIteration() throws ParseException {
         // Add extra new line at the end to simulate end of token
-        char c = i == bytes.length ? '\n' : (char) bytes[i];
+        char c = i == end ? '\n' : (char) bytes[i];
+
+        checkResize();
 
         if (checkCommentCase(c)) {
             return;
@@ -361,8 +713,6 @@ public class TextFormatTokenizer {
             return;
         }
 
-        checkResize();
-
         byte controlToken = 0;
         if (c == '{') {
             controlToken = OPEN_GROUP;
@@ -376,6 +726,22 @@ public class TextFormatTokenizer {
         checkWhitespace(c);
     }
 
+    /**
+     * @return the data that the scalar positions refer to.
+     * This is the input itself, except for stream based tokenizers, which only retain the scalar bytes.
+     */
+    public byte[] getData() {
+        return input != null ? scalarData : bytes;
+    }
+
+    /**
+     * @return whether the input was read from a stream, in which case the data only contains the scalar bytes
+     * and positions in it do not correspond to positions in the input
+     */
+    public boolean isStreamed() {
+        return input != null;
+    }
+
     public byte[] getTokenTypes() {
         return tokenTypes;
     }
@@ -388,11 +754,46 @@ public class TextFormatTokenizer {
         return scalarsStart;
     }
 
+    /**
+     * Lengths of up to {@link Short#MAX_VALUE} bytes are stored inline.
+     * For longer scalars, the negated index + 1 of the length in {@link #getLongScalarsLength()} is stored instead.
+     *
+     * @see #getScalarLength(int)
+     */
     public short[] getScalarsLength() {
         return scalarsLength;
     }
 
+    public int[] getLongScalarsLength() {
+        return longScalarsLength;
+    }
+
+    public int getLongScalarCount() {
+        return longScalarCounter;
+    }
+
+    public int getScalarLength(int scalarIndex) {
+        int length = scalarsLength[scalarIndex];
+        return length >= 0 ? length : longScalarsLength[-length - 1];
+    }
+
     public int getScalarCount() {
         return scalarCounter;
     }
+
+    public int getTokenCount() {
+        return tokenCounter;
+    }
+
+    public int getArrayCount() {
+        return arraySizesCounter;
+    }
+
+    boolean endedAtTopLevel() {
+        return endedAtTopLevel;
+    }
+
+    boolean hadTopLevelSizeUnderflow() {
+        return topLevelSizeUnderflow;
+    }
 }
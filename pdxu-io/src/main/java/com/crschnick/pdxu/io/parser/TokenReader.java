@@ -0,0 +1,250 @@
+package com.crschnick.pdxu.io.parser;
+
+import com.crschnick.pdxu.io.node.NodeContext;
+import com.crschnick.pdxu.io.node.TaggedNode;
+
+import java.util.function.Predicate;
+
+/**
+ * Walks over the tokens of a tokenized input and passes the structure to a handler.
+ * All state of a walk is kept in this class, so multiple readers can work on the same tokens at the same time.
+ */
+final class TokenReader {
+
+    private static final TextFormatHandler DISCARDING_HANDLER = new TextFormatHandler() {
+        @Override
+        public boolean startArray(int keyIndex, int size) {
+            return false;
+        }
+
+        @Override
+        public void endArray() {
+        }
+
+        @Override
+        public void scalar(int keyIndex, int valueIndex) {
+        }
+
+        @Override
+        public void tagged(int keyIndex, TaggedNode.TagType type, int valuesBegin, int valuesCount) {
+        }
+    };
+
+    private final String name;
+    private final boolean strict;
+    private final TextFormatTokenizer tokenizer;
+    private final NodeContext context;
+    private final TaggedNode.TagType[] possibleTags;
+    private final Predicate<String> keyWithoutEquals;
+
+    private int index;
+    private int slIndex;
+    private int arrayIndex;
+    private int lastKnownOffset;
+
+    TokenReader(String name, boolean strict, TextFormatTokenizer tokenizer, NodeContext context,
+                TaggedNode.TagType[] possibleTags, Predicate<String> keyWithoutEquals) {
+        this.name = name;
+        this.strict = strict;
+        this.tokenizer = tokenizer;
+        this.context = context;
+        this.possibleTags = possibleTags;
+        this.keyWithoutEquals = keyWithoutEquals;
+    }
+
+    void read(TextFormatHandler handler) throws ParseException {
+        handler.begin(context);
+        readArray(-1, handler);
+    }
+
+    /**
+     * Reads only the contents of an array that was skipped by an earlier walk.
+     * The handler receives a start event without key for the array itself.
+     */
+    void readArrayAt(int tokenIndex, int scalarIndex, int arrayIndex, int size, TextFormatHandler handler) throws ParseException {
+        this.index = tokenIndex;
+        this.slIndex = scalarIndex;
+        this.arrayIndex = arrayIndex;
+        updateLastKnownOffset();
+
+        handler.begin(context);
+        handler.startArray(-1, size);
+        readArrayContents(handler);
+    }
+
+    int getTokenIndex() {
+        return index;
+    }
+
+    int getScalarIndex() {
+        return slIndex;
+    }
+
+    int getArrayIndex() {
+        return arrayIndex;
+    }
+
+    /**
+     * Streamed inputs only retain the scalars, so there is no offset in the input that could be reported.
+     */
+    private ParseException createParseException(String message) {
+        if (tokenizer.isStreamed()) {
+            return ParseException.createFromScalarIndex(name, message, slIndex, context);
+        }
+        return ParseException.createFromLiteralIndex(name, message, slIndex, context);
+    }
+
+    private void updateLastKnownOffset() {
+        this.lastKnownOffset = context.getLiteralsBegin()[slIndex] + context.getLiteralLength(slIndex);
+    }
+
+    /**
+     * Reads the next value and passes it to the handler.
+     *
+     * @return whether the value was an array or tagged node instead of a scalar
+     */
+    private boolean readValue(int keyIndex, TextFormatHandler handler) throws ParseException {
+        var tt = tokenizer.getTokenTypes();
+        if (tt[index] == TextFormatTokenizer.STRING_UNQUOTED) {
+            var colorType = tt[index + 1] == TextFormatTokenizer.OPEN_GROUP ?
+                    TaggedNode.getTagType(possibleTags, context, slIndex) : null;
+
+            if (colorType != null) {
+                // Move over color id
+                index++;
+                moveToNextScalar();
+
+                // Move over opening {
+                index++;
+
+                int valuesBegin = slIndex;
+                while (tt[index] != TextFormatTokenizer.CLOSE_GROUP) {
+                    moveToNextScalar();
+                    index++;
+                }
+
+                // Move over closing }
+                index++;
+
+                // A color is also an array, so we have to move the array index!
+                arrayIndex++;
+
+                handler.tagged(keyIndex, colorType, valuesBegin, slIndex - valuesBegin);
+                return true;
+            }
+        } else {
+            if (tt[index] == TextFormatTokenizer.EQUALS) {
+                throw createParseException("encountered unexpected =");
+            }
+            if (tt[index] == TextFormatTokenizer.CLOSE_GROUP) {
+                throw createParseException("encountered unexpected }");
+            }
+            if (tt[index] == TextFormatTokenizer.OPEN_GROUP) {
+                readArray(keyIndex, handler);
+                return true;
+            }
+        }
+
+        handler.scalar(keyIndex, slIndex);
+        index++;
+        moveToNextScalar();
+        return false;
+    }
+
+    private void moveToNextScalar() {
+        slIndex++;
+        updateLastKnownOffset();
+    }
+
+    /**
+     * Moves over the remaining contents of the current array including the closing }.
+     * Since the tokens are already balanced, this only has to count the tokens without looking at any scalars.
+     */
+    private void skipArrayContents() {
+        var tt = tokenizer.getTokenTypes();
+        int depth = 1;
+        while (depth > 0) {
+            byte t = tt[index++];
+            if (t == TextFormatTokenizer.STRING_UNQUOTED || t == TextFormatTokenizer.STRING_QUOTED) {
+                slIndex++;
+            } else if (t == TextFormatTokenizer.OPEN_GROUP) {
+                depth++;
+                arrayIndex++;
+            } else if (t == TextFormatTokenizer.CLOSE_GROUP) {
+                depth--;
+            }
+        }
+        updateLastKnownOffset();
+    }
+
+    private void readArray(int arrayKeyIndex, TextFormatHandler handler) throws ParseException {
+        var tt = tokenizer.getTokenTypes();
+
+        assert tt[index] == TextFormatTokenizer.OPEN_GROUP : "Expected {";
+        index++;
+
+        var size = tokenizer.getArraySizes()[arrayIndex++];
+        if (!handler.startArray(arrayKeyIndex, size)) {
+            skipArrayContents();
+            return;
+        }
+
+        readArrayContents(handler);
+    }
+
+    private void readArrayContents(TextFormatHandler handler) throws ParseException {
+        var tt = tokenizer.getTokenTypes();
+        while (true) {
+            assert index < tt.length : "Reached EOF but found no closing group token";
+
+            // Check for missing keys (only in non-strict mode)
+            boolean isMissingKey = tt[index] == TextFormatTokenizer.EQUALS;
+            if (!strict && isMissingKey) {
+                // Move over =
+                index++;
+
+                // Discard next node if there is one!
+                if (tt[index] != TextFormatTokenizer.CLOSE_GROUP) {
+                    readValue(-1, DISCARDING_HANDLER);
+                }
+            }
+
+            if (tt[index] == TextFormatTokenizer.CLOSE_GROUP) {
+                index++;
+                handler.endArray();
+                return;
+            }
+
+            boolean isKeyValue = tt[index + 1] == TextFormatTokenizer.EQUALS;
+            if (isKeyValue) {
+                if (tt[index] != TextFormatTokenizer.STRING_UNQUOTED &&
+                        tt[index] != TextFormatTokenizer.STRING_QUOTED) {
+                    if (tokenizer.isStreamed()) {
+                        throw createParseException("Expected key");
+                    }
+                    throw ParseException.createFromOffset(name, "Expected key", lastKnownOffset, context.getData());
+                }
+
+                int keyIndex = slIndex;
+                moveToNextScalar();
+                index += 2;
+                readValue(keyIndex, handler);
+                continue;
+            }
+
+            boolean isKeyValueWithoutEquals = tt[index] == TextFormatTokenizer.STRING_UNQUOTED &&
+                    tt[index + 1] == TextFormatTokenizer.OPEN_GROUP;
+            if (isKeyValueWithoutEquals && keyWithoutEquals.test(context.evaluate(slIndex))) {
+                int keyIndex = slIndex;
+                moveToNextScalar();
+                index++;
+                boolean isNode = readValue(keyIndex, handler);
+                assert isNode : "KeyValue without equal sign must be an array node";
+                continue;
+            }
+
+            // Parse unnamed array element
+            readValue(-1, handler);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.crschnick.pdxu.io.parser;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * Keeps the token type and array size arrays of the last finished tokenizer per thread,
+ * so that repeatedly parsing inputs of a similar size does not have to allocate them again.
+ * Unlike the scalar arrays, these are not referenced by any created node.
+ * <p>
+ * Pooled arrays are only softly referenced and are taken out of the pool while they are in use.
+ */
+final class TokenizerArrayPool {
+
+    record Buffers(byte[] tokenTypes, int[] arraySizes) {
+    }
+
+    private static final ThreadLocal<SoftReference<Buffers>> POOL = new ThreadLocal<>();
+
+    /**
+     * @return the pooled arrays if they are large enough, otherwise new ones. The contents are not cleared
+     */
+    static Buffers acquire(int minTokenTypes, int minArraySizes) {
+        var ref = POOL.get();
+        var pooled = ref != null ? ref.get() : null;
+        POOL.remove();
+
+        return new Buffers(
+                pooled != null && pooled.tokenTypes().length >= minTokenTypes ? pooled.tokenTypes() : new byte[minTokenTypes],
+                pooled != null && pooled.arraySizes().length >= minArraySizes ? pooled.arraySizes() : new int[minArraySizes]);
+    }
+
+    /**
+     * Puts the arrays into the pool of the current thread. They must not be used by the caller afterwards.
+     */
+    static void release(byte[] tokenTypes, int[] arraySizes) {
+        POOL.set(new SoftReference<>(new Buffers(tokenTypes, arraySizes)));
+    }
+}
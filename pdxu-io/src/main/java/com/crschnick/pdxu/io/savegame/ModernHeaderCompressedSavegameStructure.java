@@ -9,8 +9,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 public class ModernHeaderCompressedSavegameStructure extends ZipSavegameStructure {
 
@@ -55,9 +53,9 @@ public class ModernHeaderCompressedSavegameStructure extends ZipSavegameStructur
             String header = new ModernHeader(true, 1, false, metaBytes.length).toString();
             out.write((header + "\n").getBytes(StandardCharsets.UTF_8));
             out.write(metaBytes);
-            try (var zout = new ZipOutputStream(out)) {
-                zout.putNextEntry(new ZipEntry("gamestate"));
-                NodeWriter.write(zout, StandardCharsets.UTF_8, gamestate, "\t", 0);
+            try (var zout = new ParallelZipOutputStream(out)) {
+                zout.putNextEntry("gamestate");
+                writeData(zout, gamestate);
                 zout.closeEntry();
             }
         }
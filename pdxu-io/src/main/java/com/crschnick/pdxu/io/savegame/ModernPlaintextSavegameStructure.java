@@ -27,7 +27,7 @@ public class ModernPlaintextSavegameStructure implements SavegameStructure {
             String header = new ModernHeader(true, 0, false, metaBytes.length - 1).toString();
             gsOut.write((header + "\n").getBytes(StandardCharsets.UTF_8));
 
-            NodeWriter.write(gsOut, StandardCharsets.UTF_8, gamestate, "\t", 0);
+            writeData(gsOut, gamestate);
         }
     }
 
@@ -48,7 +48,7 @@ public class ModernPlaintextSavegameStructure implements SavegameStructure {
             metaStart = header.toString().length() + 1;
         }
         try {
-            var node = getType().getParser().parse("gamestate", input, metaStart);
+            var node = getType().getParser().parse("gamestate", input, metaStart, false, true);
             if (node.size() == 0) {
                 return new SavegameParseResult.Invalid("File gamestate is empty");
             }
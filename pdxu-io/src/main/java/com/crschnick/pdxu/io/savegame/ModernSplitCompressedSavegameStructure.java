@@ -1,6 +1,5 @@
 package com.crschnick.pdxu.io.savegame;
 
-import com.crschnick.pdxu.io.node.NodeWriter;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -8,8 +7,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Set;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 public class ModernSplitCompressedSavegameStructure extends ZipSavegameStructure {
 
@@ -50,13 +47,13 @@ public class ModernSplitCompressedSavegameStructure extends ZipSavegameStructure
             // Exclude trailing new line in meta length!
             String header = new ModernHeader(true, 2, false, 0).toString();
             out.write((header + "\n").getBytes(StandardCharsets.UTF_8));
-            try (var zout = new ZipOutputStream(out)) {
-                zout.putNextEntry(new ZipEntry("gamestate"));
-                NodeWriter.write(zout, StandardCharsets.UTF_8, gamestate, "\t", 0);
+            try (var zout = new ParallelZipOutputStream(out)) {
+                zout.putNextEntry("gamestate");
+                writeData(zout, gamestate);
                 zout.closeEntry();
 
-                zout.putNextEntry(new ZipEntry("meta"));
-                NodeWriter.write(zout, StandardCharsets.UTF_8, meta, "\t", 0);
+                zout.putNextEntry("meta");
+                writeData(zout, meta);
                 zout.closeEntry();
             }
         }
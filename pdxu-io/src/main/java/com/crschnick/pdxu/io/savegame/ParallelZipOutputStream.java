@@ -0,0 +1,340 @@
+package com.crschnick.pdxu.io.savegame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * Writes a standard zip file whose entries are deflated in parallel on the common fork join pool.
+ * <p>
+ * The data of an entry is split into blocks that are compressed independently, primed with the last 32 KiB
+ * of the previous block as dictionary. All blocks except the last one end with a sync flush,
+ * so the compressed blocks can be concatenated into one valid deflate stream, similar to pigz.
+ * <p>
+ * Entry sizes are written in a data descriptor after the entry data, like {@link java.util.zip.ZipOutputStream} does.
+ * Zip64 is not supported.
+ */
+public final class ParallelZipOutputStream extends OutputStream {
+
+    private static final int BLOCK_SIZE = 1 << 17;
+    private static final int DICTIONARY_SIZE = 1 << 15;
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+
+    private static volatile int defaultLevel = Deflater.DEFAULT_COMPRESSION;
+
+    public static int getDefaultLevel() {
+        return defaultLevel;
+    }
+
+    /**
+     * Sets the compression level used for savegames, from 0 to 9 or {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    public static void setDefaultLevel(int level) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        }
+        defaultLevel = level;
+    }
+
+    private record Entry(byte[] name, int flags, int method, int time, long crc, long compressedSize, long size, long offset) {
+    }
+
+    private final OutputStream out;
+    private final int level;
+    private final int maxPending = Math.max(2, ForkJoinPool.getCommonPoolParallelism() * 2);
+    private final List<Entry> entries = new ArrayList<>();
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+    private long written;
+
+    private byte[] entryName;
+    private int entryTime;
+    private long entryOffset;
+    private long entrySize;
+    private long entryCompressedSize;
+    private byte[] block;
+    private int blockLength;
+    private byte[] dictionary;
+
+    public ParallelZipOutputStream(OutputStream out) {
+        this(out, defaultLevel);
+    }
+
+    public ParallelZipOutputStream(OutputStream out, int level) {
+        this.out = out;
+        this.level = level;
+    }
+
+    private static int dosTime(LocalDateTime t) {
+        return (t.getYear() - 1980) << 25 | t.getMonthValue() << 21 | t.getDayOfMonth() << 16 |
+                t.getHour() << 11 | t.getMinute() << 5 | t.getSecond() >> 1;
+    }
+
+    private static byte[] deflate(byte[] input, int length, byte[] dictionary, boolean last, int level) {
+        var deflater = new Deflater(level, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(input, 0, length);
+
+            var result = new ByteArrayOutputStream(length / 3 + 64);
+            var buffer = new byte[1 << 16];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    result.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                // The output is complete once the buffer is not filled entirely
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    result.write(buffer, 0, n);
+                } while (n == buffer.length);
+            }
+            return result.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public void putNextEntry(String name) throws IOException {
+        if (entryName != null) {
+            closeEntry();
+        }
+
+        entryName = name.getBytes(StandardCharsets.UTF_8);
+        entryTime = dosTime(LocalDateTime.now());
+        entryOffset = written;
+        entrySize = 0;
+        entryCompressedSize = 0;
+        crc.reset();
+        block = new byte[BLOCK_SIZE];
+        blockLength = 0;
+        dictionary = null;
+
+        writeInt(0x04034b50);
+        writeShort(20);
+        writeShort(getFlags(entryName));
+        writeShort(8);
+        writeInt(entryTime);
+        // The checksum and sizes are contained in the data descriptor
+        writeInt(0);
+        writeInt(0);
+        writeInt(0);
+        writeShort(entryName.length);
+        writeShort(0);
+        writeBytes(entryName, 0, entryName.length);
+    }
+
+    /**
+     * Copies an entry of another zip file without inflating and deflating it again.
+     * The modification time of the entry is kept.
+     */
+    public void copyEntry(ZipReader.Entry entry, ByteBuffer rawData) throws IOException {
+        if (entryName != null) {
+            closeEntry();
+        }
+
+        var name = entry.name().getBytes(StandardCharsets.UTF_8);
+        int time = entry.time();
+        long offset = written;
+
+        // The checksum and sizes are known, so no data descriptor is needed
+        int flags = getFlags(name) & ~0x0008;
+        writeInt(0x04034b50);
+        writeShort(20);
+        writeShort(flags);
+        writeShort(entry.method());
+        writeInt(time);
+        writeInt(entry.crc());
+        writeInt(entry.compressedSize());
+        writeInt(entry.size());
+        writeShort(name.length);
+        writeShort(0);
+        writeBytes(name, 0, name.length);
+
+        var buffer = new byte[1 << 16];
+        var data = rawData.duplicate();
+        while (data.hasRemaining()) {
+            int n = Math.min(buffer.length, data.remaining());
+            data.get(buffer, 0, n);
+            writeBytes(buffer, 0, n);
+        }
+
+        if (offset > MAX_SIZE) {
+            throw new ZipException("Zip file is too large");
+        }
+        entries.add(new Entry(name, flags, entry.method(), time, Integer.toUnsignedLong(entry.crc()),
+                Integer.toUnsignedLong(entry.compressedSize()), Integer.toUnsignedLong(entry.size()), offset));
+    }
+
+    private int getFlags(byte[] name) {
+        boolean ascii = true;
+        for (byte b : name) {
+            if (b < 0) {
+                ascii = false;
+                break;
+            }
+        }
+        return ascii ? 0x0008 : 0x0808;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (entryName == null) {
+            throw new ZipException("No current zip entry");
+        }
+
+        crc.update(b, off, len);
+        entrySize += len;
+        while (len > 0) {
+            int n = Math.min(len, BLOCK_SIZE - blockLength);
+            System.arraycopy(b, off, block, blockLength, n);
+            blockLength += n;
+            off += n;
+            len -= n;
+            if (blockLength == BLOCK_SIZE) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        var input = block;
+        int length = blockLength;
+        var dict = dictionary;
+        int compressionLevel = level;
+        pending.add(ForkJoinPool.commonPool().submit(() -> deflate(input, length, dict, last, compressionLevel)));
+
+        if (!last) {
+            dictionary = Arrays.copyOfRange(input, length - DICTIONARY_SIZE, length);
+            block = new byte[BLOCK_SIZE];
+            blockLength = 0;
+        }
+
+        while (pending.size() > (last ? 0 : maxPending)) {
+            writePending();
+        }
+    }
+
+    private void writePending() throws IOException {
+        byte[] compressed;
+        try {
+            compressed = pending.remove().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        writeBytes(compressed, 0, compressed.length);
+        entryCompressedSize += compressed.length;
+    }
+
+    public void closeEntry() throws IOException {
+        if (entryName == null) {
+            return;
+        }
+
+        submitBlock(true);
+        if (entrySize > MAX_SIZE || entryCompressedSize > MAX_SIZE || entryOffset > MAX_SIZE) {
+            throw new ZipException("Entry is too large");
+        }
+
+        writeInt(0x08074b50);
+        writeInt((int) crc.getValue());
+        writeInt((int) entryCompressedSize);
+        writeInt((int) entrySize);
+        entries.add(new Entry(entryName, getFlags(entryName), 8, entryTime, crc.getValue(), entryCompressedSize, entrySize, entryOffset));
+        entryName = null;
+        block = null;
+        dictionary = null;
+    }
+
+    /**
+     * Writes the central directory and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            closeEntry();
+            finish();
+        } finally {
+            pending.forEach(f -> f.cancel(false));
+            out.close();
+        }
+    }
+
+    private void finish() throws IOException {
+        long directoryOffset = written;
+        for (var e : entries) {
+            writeInt(0x02014b50);
+            writeShort(20);
+            writeShort(20);
+            writeShort(e.flags());
+            writeShort(e.method());
+            writeInt(e.time());
+            writeInt((int) e.crc());
+            writeInt((int) e.compressedSize());
+            writeInt((int) e.size());
+            writeShort(e.name().length);
+            writeShort(0);
+            writeShort(0);
+            writeShort(0);
+            writeShort(0);
+            writeInt(0);
+            writeInt((int) e.offset());
+            writeBytes(e.name(), 0, e.name().length);
+        }
+        long directorySize = written - directoryOffset;
+        if (entries.size() > 0xFFFF || directoryOffset > MAX_SIZE) {
+            throw new ZipException("Zip file is too large");
+        }
+
+        writeInt(0x06054b50);
+        writeShort(0);
+        writeShort(0);
+        writeShort(entries.size());
+        writeShort(entries.size());
+        writeInt((int) directorySize);
+        writeInt((int) directoryOffset);
+        writeShort(0);
+        out.flush();
+    }
+
+    private void writeBytes(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        written += len;
+    }
+
+    private void writeShort(int v) throws IOException {
+        out.write(v & 0xFF);
+        out.write((v >>> 8) & 0xFF);
+        written += 2;
+    }
+
+    private void writeInt(int v) throws IOException {
+        writeShort(v & 0xFFFF);
+        writeShort((v >>> 16) & 0xFFFF);
+    }
+}
@@ -41,7 +41,7 @@ public class PlaintextSavegameStructure implements SavegameStructure {
         }
 
         try {
-            var node = type.getParser().parse(name, input, header != null ? header.length + 1 : 0);
+            var node = type.getParser().parse(name, input, header != null ? header.length + 1 : 0, false, true);
             if (node.size() == 0) {
                 return new SavegameParseResult.Invalid("File " + name + " is empty. Did something go wrong?");
             }
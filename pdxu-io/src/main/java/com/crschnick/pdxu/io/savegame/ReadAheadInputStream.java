@@ -0,0 +1,122 @@
+package com.crschnick.pdxu.io.savegame;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads another stream ahead on a separate thread, so that for example inflating an entry
+ * runs at the same time as the consumer tokenizes the already inflated data.
+ * At most a fixed number of blocks are buffered, after which the reading thread waits for the consumer.
+ * <p>
+ * The wrapped stream is owned by the reading thread and closed once it is done or this stream is closed.
+ */
+final class ReadAheadInputStream extends InputStream {
+
+    private static final int BLOCK_SIZE = 1 << 18;
+    private static final int MAX_BLOCKS = 8;
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(MAX_BLOCKS);
+    private final Thread reader;
+    private volatile Throwable error;
+    private byte[] current;
+    private int position;
+    private boolean finished;
+    private boolean closed;
+
+    ReadAheadInputStream(InputStream source) {
+        this.reader = Thread.ofPlatform().daemon().name("read-ahead").start(() -> readAll(source));
+    }
+
+    private void readAll(InputStream source) {
+        boolean consumerClosed = false;
+        try (source) {
+            while (true) {
+                var block = source.readNBytes(BLOCK_SIZE);
+                if (block.length == 0) {
+                    break;
+                }
+                blocks.put(block);
+                if (block.length < BLOCK_SIZE) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            // The consumer closed this stream, so nobody is waiting for the end marker
+            consumerClosed = true;
+        } catch (Throwable t) {
+            // Any failure, for example of the inflater, has to reach the consumer, otherwise it would wait forever
+            error = t;
+        } finally {
+            if (!consumerClosed) {
+                try {
+                    blocks.put(END);
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }
+    }
+
+    private boolean nextBlock() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (finished) {
+            return false;
+        }
+
+        try {
+            current = blocks.take();
+            position = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+
+        if (current == END) {
+            finished = true;
+            if (error instanceof IOException e) {
+                throw e;
+            } else if (error != null) {
+                throw new IOException(error);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if ((current == null || position == current.length) && !nextBlock()) {
+            return -1;
+        }
+        return Byte.toUnsignedInt(current[position++]);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if ((current == null || position == current.length) && !nextBlock()) {
+            return -1;
+        }
+
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            reader.interrupt();
+            blocks.clear();
+        }
+    }
+}
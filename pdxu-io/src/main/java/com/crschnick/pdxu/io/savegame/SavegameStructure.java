@@ -54,7 +54,7 @@ public interface SavegameStructure {
 
         @Override
         public void writeData(OutputStream out, ArrayNode node) throws IOException {
-            NodeWriter.write(out, getType().getParser().getCharset(), node, "\t", 1);
+            NodeWriter.writeParallel(out, getType().getParser().getCharset(), node, "\t", 1);
             out.write("}".getBytes());
         }
     };
@@ -67,7 +67,7 @@ public interface SavegameStructure {
 
         @Override
         public void writeData(OutputStream out, ArrayNode node) throws IOException {
-            NodeWriter.write(out, getType().getParser().getCharset(), node, "\t", 1);
+            NodeWriter.writeParallel(out, getType().getParser().getCharset(), node, "\t", 1);
             out.write("\n}".getBytes());
         }
     };
@@ -79,7 +79,7 @@ public interface SavegameStructure {
 
         @Override
         public void writeData(OutputStream out, ArrayNode node) throws IOException {
-            NodeWriter.write(out, getType().getParser().getCharset(), node, "\t", 0);
+            NodeWriter.writeParallel(out, getType().getParser().getCharset(), node, "\t", 0);
             out.write("}".getBytes());
         }
     };
@@ -97,7 +97,7 @@ public interface SavegameStructure {
     void write(Path out, SavegameContent content) throws IOException;
 
     default void writeData(OutputStream out, ArrayNode node) throws IOException {
-        NodeWriter.write(out, getType().getParser().getCharset(), node, "\t", 0);
+        NodeWriter.writeParallel(out, getType().getParser().getCharset(), node, "\t", 0);
     }
 
     SavegameParseResult parse(byte[] input);
@@ -3,15 +3,11 @@ package com.crschnick.pdxu.io.savegame;
 import com.crschnick.pdxu.io.node.ValueNode;
 import com.crschnick.pdxu.io.parser.TextFormatParser;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Random;
 import java.util.UUID;
-import java.util.zip.ZipInputStream;
 
 public interface SavegameType {
 
@@ -28,12 +24,7 @@ public interface SavegameType {
 
         @Override
         public boolean isCompressed(byte[] input) {
-            try {
-                var zipIn = new ZipInputStream(new ByteArrayInputStream(input));
-                return zipIn.getNextEntry() != null;
-            } catch (IOException e) {
-                return false;
-            }
+            return ZipReader.open(input, 0).flatMap(ZipReader::getFirstEntry).isPresent();
         }
 
         @Override
@@ -48,14 +39,8 @@ public interface SavegameType {
                 return true;
             }
 
-            try {
-                var zipIn = new ZipInputStream(new ByteArrayInputStream(input));
-                zipIn.getNextEntry();
-                var header = zipIn.readNBytes(6);
-                return new String(header).equals("EU4bin");
-            } catch (IOException ex) {
-                return false;
-            }
+            // Only the first bytes of the first entry are inflated
+            return SavegameStructure.validateHeader("EU4bin".getBytes(StandardCharsets.US_ASCII), ZipSavegameStructure.getFirstHeader(input, 6));
         }
 
         @Override
@@ -296,12 +281,7 @@ public interface SavegameType {
 
         @Override
         public boolean isCompressed(byte[] input) {
-            try {
-                var zipIn = new ZipInputStream(new ByteArrayInputStream(input));
-                return zipIn.getNextEntry() != null;
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
+            return ZipReader.open(input, 0).flatMap(ZipReader::getFirstEntry).isPresent();
         }
 
         @Override
@@ -0,0 +1,265 @@
+package com.crschnick.pdxu.io.savegame;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads zip files that are already in memory, for example as a byte array or a mapped file.
+ * Only the central directory is parsed upfront, entries can then be opened individually by name.
+ * Entry streams only inflate as much data as is read from them,
+ * so reading the first bytes of a large entry is cheap.
+ * <p>
+ * Data in front of the zip file, like the header of modern savegames, is supported. Zip64 is not supported.
+ */
+public final class ZipReader {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_HEADER = 0x06054b50;
+    private static final int END_SIZE = 22;
+
+    /**
+     * @param time the modification date and time in the MS-DOS format, with the date in the upper two bytes
+     */
+    public record Entry(String name, int method, int time, int crc, int compressedSize, int size, int localHeaderOffset) {
+    }
+
+    private final ByteBuffer data;
+    private final List<Entry> entries;
+    private final Map<String, Entry> entriesByName;
+
+    private ZipReader(ByteBuffer data, List<Entry> entries) {
+        this.data = data;
+        this.entries = entries;
+        this.entriesByName = new HashMap<>();
+        for (var e : entries) {
+            entriesByName.putIfAbsent(e.name(), e);
+        }
+    }
+
+    /**
+     * @return the reader, or an empty optional if the data is not a supported zip file
+     */
+    public static Optional<ZipReader> open(byte[] input, int offset) {
+        return open(ByteBuffer.wrap(input, offset, input.length - offset));
+    }
+
+    /**
+     * Reads from the remaining bytes of the buffer. The buffer is not modified.
+     *
+     * @return the reader, or an empty optional if the data is not a supported zip file
+     */
+    public static Optional<ZipReader> open(ByteBuffer buffer) {
+        var data = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int end = findEnd(data);
+        if (end == -1) {
+            return Optional.empty();
+        }
+
+        int count = Short.toUnsignedInt(data.getShort(end + 10));
+        int directorySize = data.getInt(end + 12);
+        int directoryOffset = data.getInt(end + 16);
+        int directoryStart = end - directorySize;
+        if (directorySize < 0 || directoryOffset < 0 || directoryStart < 0) {
+            return Optional.empty();
+        }
+
+        // Offsets can be relative to the zip start or to the start of the data in front of it
+        int shift = directoryStart - directoryOffset;
+        List<Entry> entries = new ArrayList<>(count);
+        int pos = directoryStart;
+        for (int i = 0; i < count; i++) {
+            if (pos + 46 > end || data.getInt(pos) != CENTRAL_HEADER) {
+                return Optional.empty();
+            }
+
+            int method = Short.toUnsignedInt(data.getShort(pos + 10));
+            int time = data.getInt(pos + 12);
+            int crc = data.getInt(pos + 16);
+            int compressedSize = data.getInt(pos + 20);
+            int size = data.getInt(pos + 24);
+            int nameLength = Short.toUnsignedInt(data.getShort(pos + 28));
+            int extraLength = Short.toUnsignedInt(data.getShort(pos + 30));
+            int commentLength = Short.toUnsignedInt(data.getShort(pos + 32));
+            int localHeaderOffset = data.getInt(pos + 42) + shift;
+            if (compressedSize < 0 || size < 0 || localHeaderOffset < 0 || pos + 46 + nameLength > end) {
+                return Optional.empty();
+            }
+
+            var name = new byte[nameLength];
+            data.get(pos + 46, name);
+            entries.add(new Entry(new String(name, StandardCharsets.UTF_8), method, time, crc, compressedSize, size, localHeaderOffset));
+            pos += 46 + nameLength + extraLength + commentLength;
+        }
+
+        // Use the order in which the entries are stored, as a sequential reader would
+        entries.sort(Comparator.comparingInt(Entry::localHeaderOffset));
+        return Optional.of(new ZipReader(data, Collections.unmodifiableList(entries)));
+    }
+
+    private static int findEnd(ByteBuffer data) {
+        int last = data.limit() - END_SIZE;
+        int first = Math.max(0, last - 0xFFFF);
+        for (int pos = last; pos >= first; pos--) {
+            if (data.getInt(pos) == END_HEADER && pos + END_SIZE + Short.toUnsignedInt(data.getShort(pos + 20)) <= data.limit()) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public Optional<Entry> getEntry(String name) {
+        return Optional.ofNullable(entriesByName.get(name));
+    }
+
+    /**
+     * @return the first entry that is stored in the file
+     */
+    public Optional<Entry> getFirstEntry() {
+        return entries.stream().findFirst();
+    }
+
+    /**
+     * Only inflates as much as is needed for the requested bytes.
+     *
+     * @return up to the first {@code length} bytes of the entry
+     */
+    public byte[] readStart(Entry entry, int length) throws IOException {
+        try (var in = getInputStream(entry)) {
+            return in.readNBytes(length);
+        }
+    }
+
+    /**
+     * @return the data of the entry as it is stored, i.e. usually compressed
+     */
+    public ByteBuffer getRawData(Entry entry) throws IOException {
+        int pos = entry.localHeaderOffset();
+        if (pos + 30 > data.limit() || data.getInt(pos) != LOCAL_HEADER) {
+            throw new ZipException("Invalid local header for entry " + entry.name());
+        }
+
+        int nameLength = Short.toUnsignedInt(data.getShort(pos + 26));
+        int extraLength = Short.toUnsignedInt(data.getShort(pos + 28));
+        int dataStart = pos + 30 + nameLength + extraLength;
+        if (dataStart + entry.compressedSize() > data.limit()) {
+            throw new ZipException("Truncated data for entry " + entry.name());
+        }
+
+        return data.slice(dataStart, entry.compressedSize());
+    }
+
+    public InputStream getInputStream(Entry entry) throws IOException {
+        var compressed = getRawData(entry);
+        return switch (entry.method()) {
+            case 0 -> new StoredInputStream(compressed);
+            case 8 -> new InflatingInputStream(compressed);
+            default -> throw new ZipException("Unsupported compression method " + entry.method() + " for entry " + entry.name());
+        };
+    }
+
+    private static final class StoredInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private StoredInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? Byte.toUnsignedInt(buffer.get()) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private static final class InflatingInputStream extends InputStream {
+
+        private final Inflater inflater = new Inflater(true);
+        private boolean dummyByteSupplied;
+        private boolean closed;
+
+        private InflatingInputStream(ByteBuffer compressed) {
+            inflater.setInput(compressed);
+        }
+
+        @Override
+        public int read() throws IOException {
+            var b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : Byte.toUnsignedInt(b[0]);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+
+            try {
+                while (true) {
+                    int n = inflater.inflate(b, off, len);
+                    if (n > 0) {
+                        return n;
+                    }
+                    if (inflater.finished()) {
+                        return -1;
+                    }
+                    if (inflater.needsDictionary()) {
+                        throw new ZipException("Invalid deflate data");
+                    }
+                    if (inflater.needsInput()) {
+                        // Raw inflating might need one additional byte after the end of the data
+                        if (dummyByteSupplied) {
+                            throw new EOFException("Unexpected end of deflate data");
+                        }
+                        dummyByteSupplied = true;
+                        inflater.setInput(new byte[1]);
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                inflater.end();
+            }
+        }
+    }
+}
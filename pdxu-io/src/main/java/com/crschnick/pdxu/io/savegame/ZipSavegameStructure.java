@@ -3,29 +3,49 @@ package com.crschnick.pdxu.io.savegame;
 import com.crschnick.pdxu.io.node.ArrayNode;
 import com.crschnick.pdxu.io.node.NodeWriter;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.file.FileSystems;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipException;
 
 public class ZipSavegameStructure implements SavegameStructure {
 
     public static byte[] getFirstHeader(byte[] input, int maxLength) {
-        try {
-            var zipIn = new ZipInputStream(new ByteArrayInputStream(input));
-            if (zipIn.getNextEntry() != null) {
-                return Arrays.copyOfRange(zipIn.readAllBytes(), 0, maxLength);
+        var first = ZipReader.open(input, 0).flatMap(zip -> zip.getFirstEntry().map(entry -> {
+            try {
+                return zip.readStart(entry, maxLength);
+            } catch (IOException e) {
+                return null;
             }
-        } catch (IOException ignored) {
+        }));
+        if (first.isPresent()) {
+            return Arrays.copyOf(first.get(), maxLength);
         }
 
         return Arrays.copyOfRange(input, 0, maxLength);
     }
 
+    private static volatile boolean concurrentParsing = Runtime.getRuntime().availableProcessors() > 1;
+
+    public static boolean isConcurrentParsing() {
+        return concurrentParsing;
+    }
+
+    /**
+     * Sets whether the entries of zip savegames are inflated and parsed concurrently.
+     * This is enabled by default if more than one processor is available.
+     */
+    public static void setConcurrentParsing(boolean concurrent) {
+        concurrentParsing = concurrent;
+    }
+
     private final byte[] header;
     private final SavegameType type;
     private final Set<SavegamePart> parts;
@@ -44,86 +64,179 @@ public class ZipSavegameStructure implements SavegameStructure {
                 .findAny();
 
         try {
-            try (var zipIn = new ZipInputStream(new ByteArrayInputStream(input, offset, input.length - offset))) {
-                Map<String, ArrayNode> nodes = new LinkedHashMap<>();
-                ZipEntry entry;
-                while ((entry = zipIn.getNextEntry()) != null) {
-                    ZipEntry finalZipEntry = entry;
-
-                    // Skip ignored entries
-                    if (Arrays.stream(ignored).anyMatch(s -> s.equals(finalZipEntry.getName()))) {
-                        continue;
-                    }
+            // Entries are located through the central directory, so no entry is inflated unless it is parsed
+            var zip = ZipReader.open(input, offset);
+            List<Map.Entry<ZipReader.Entry, SavegamePart>> used = new ArrayList<>();
+            for (var entry : zip.map(ZipReader::getEntries).orElse(List.of())) {
+                // Skip ignored entries
+                if (Arrays.asList(ignored).contains(entry.name())) {
+                    continue;
+                }
 
-                    var part = parts.stream()
-                            .filter(p -> p.fileName().equals(finalZipEntry.getName()))
-                            .findAny().or(() -> wildcard);
+                var part = parts.stream()
+                        .filter(p -> p.fileName().equals(entry.name()))
+                        .findAny().or(() -> wildcard);
 
-                    // Ignore unknown entry
-                    if (part.isEmpty()) {
-                        continue;
-                    }
+                // Ignore unknown entry
+                if (part.isEmpty()) {
+                    continue;
+                }
 
-                    var bytes = zipIn.readAllBytes();
-                    if (header != null && !SavegameStructure.validateHeader(header, bytes)) {
-                        return new SavegameParseResult.Invalid("File " + part.get().identifier() + " has an invalid header");
-                    }
+                used.add(Map.entry(entry, part.get()));
+            }
 
-                    var node = type.getParser().parse(part.get().identifier(), bytes, header != null ? header.length + 1 : 0);
-                    if (node.size() == 0) {
-                        return new SavegameParseResult.Invalid("File " + part.get().identifier() + " is empty");
-                    }
+            var parsed = concurrentParsing ? parsePartsConcurrently(zip.orElse(null), used) : parseParts(zip.orElse(null), used);
+            if (parsed.invalid() != null) {
+                return parsed.invalid();
+            }
 
-                    nodes.put(part.get().identifier(), node);
-                }
+            var missingParts = parts.stream()
+                    .map(SavegamePart::identifier)
+                    .filter(s -> !parsed.nodes().containsKey(s))
+                    .toList();
+            if (missingParts.size() > 0) {
+                return new SavegameParseResult.Invalid("Missing parts: " + String.join(", ", missingParts));
+            }
+
+            return new SavegameParseResult.Success(new SavegameContent(parsed.nodes()));
+        } catch (Exception t) {
+            return new SavegameParseResult.Error(t);
+        }
+    }
+
+    private record ParsedParts(Map<String, ArrayNode> nodes, SavegameParseResult.Invalid invalid) {
+    }
+
+    private ParsedParts parseParts(ZipReader zip, List<Map.Entry<ZipReader.Entry, SavegamePart>> used) throws Exception {
+        Map<String, ArrayNode> nodes = new LinkedHashMap<>();
+        for (var e : used) {
+            var parsed = parsePart(zip.getInputStream(e.getKey()), e.getValue());
+            if (parsed.invalid() != null) {
+                return parsed;
+            }
+            nodes.putAll(parsed.nodes());
+        }
+        return new ParsedParts(nodes, null);
+    }
+
+    /**
+     * Parses all parts at the same time. Each entry is inflated on its own thread ahead of the tokenizer,
+     * so that the inflation of large entries overlaps with their tokenization.
+     * The parts are combined in the same order as in the sequential case.
+     */
+    private ParsedParts parsePartsConcurrently(ZipReader zip, List<Map.Entry<ZipReader.Entry, SavegamePart>> used) throws Exception {
+        // Platform threads, as inflating and parsing are CPU bound
+        try (var executor = Executors.newThreadPerTaskExecutor(Thread.ofPlatform().daemon().name("zip-parser-", 0).factory())) {
+            List<Future<ParsedParts>> futures = new ArrayList<>();
+            for (var e : used) {
+                futures.add(executor.submit(() -> parsePart(new ReadAheadInputStream(zip.getInputStream(e.getKey())), e.getValue())));
+            }
 
-                var missingParts = parts.stream()
-                        .map(SavegamePart::identifier)
-                        .filter(s -> !nodes.containsKey(s))
-                        .toList();
-                if (missingParts.size() > 0) {
-                    return new SavegameParseResult.Invalid("Missing parts: " + String.join(", ", missingParts));
+            Map<String, ArrayNode> nodes = new LinkedHashMap<>();
+            try {
+                for (var f : futures) {
+                    var parsed = f.get();
+                    if (parsed.invalid() != null) {
+                        executor.shutdownNow();
+                        return parsed;
+                    }
+                    nodes.putAll(parsed.nodes());
+                }
+            } catch (ExecutionException ex) {
+                executor.shutdownNow();
+                if (ex.getCause() instanceof Exception cause) {
+                    throw cause;
                 }
+                throw ex;
+            }
+            return new ParsedParts(nodes, null);
+        }
+    }
 
-                return new SavegameParseResult.Success(new SavegameContent(nodes));
+    private ParsedParts parsePart(InputStream entryIn, SavegamePart part) throws Exception {
+        try (var zipIn = entryIn) {
+            // Only the header and the following separator are read upfront, the rest of the entry is parsed while inflating
+            if (header != null && !SavegameStructure.validateHeader(header, zipIn.readNBytes(header.length + 1))) {
+                return new ParsedParts(Map.of(), new SavegameParseResult.Invalid("File " + part.identifier() + " has an invalid header"));
             }
-        } catch (Exception t) {
-            return new SavegameParseResult.Error(t);
+
+            // Parsing while inflating keeps only the scalar bytes of large entries in memory.
+            // In exchange, the entries are not tokenized in parallel like large plaintext savegames
+            var node = type.getParser().parse(part.identifier(), zipIn, false);
+            if (node.size() == 0) {
+                return new ParsedParts(Map.of(), new SavegameParseResult.Invalid("File " + part.identifier() + " is empty"));
+            }
+
+            return new ParsedParts(Map.of(part.identifier(), node), null);
         }
     }
 
     @Override
     public void write(Path out, SavegameContent content) throws IOException {
-        try (var fs = FileSystems.newFileSystem(out, Map.of("create", true))) {
-            Optional<SavegamePart> wildcardPart;
-            try (var list = Files.list(fs.getPath("/"))) {
-                 wildcardPart = list.map(path -> path.getFileName().toString()).filter(p -> content.entrySet().stream().noneMatch(e -> p.equals(e.getKey())))
-                         .map(s -> new SavegamePart(s, "gamestate"))
-                        .findAny();
+        // Entries of an existing file are kept unless they are replaced
+        ZipReader existingZip = null;
+        if (Files.exists(out)) {
+            existingZip = ZipReader.open(Files.readAllBytes(out), 0)
+                    .orElseThrow(() -> new ZipException("Unsupported zip file " + out));
+        }
+        List<String> existing = existingZip != null ?
+                existingZip.getEntries().stream().map(ZipReader.Entry::name).toList() : List.of();
+
+        Optional<SavegamePart> wildcardPart = existing.stream()
+                .filter(p -> content.entrySet().stream().noneMatch(e -> p.equals(e.getKey())))
+                .map(s -> new SavegamePart(s, "gamestate"))
+                .findAny();
+
+        Map<String, ArrayNode> written = new LinkedHashMap<>();
+        for (var e : content.entrySet()) {
+            var usedPart = parts.stream()
+                    .filter(part -> part.fileName().equals(e.getKey()))
+                    .findAny();
+
+            if (usedPart.isEmpty() && wildcardPart.isPresent() && wildcardPart.get().identifier().equals(e.getKey())) {
+                usedPart = wildcardPart;
             }
 
-            for (var e : content.entrySet()) {
-                var usedPart = parts.stream()
-                        .filter(part -> part.fileName().equals(e.getKey()))
-                        .findAny();
+            if (usedPart.isEmpty()) {
+                continue;
+            }
 
-                if (usedPart.isEmpty() && wildcardPart.isPresent() && wildcardPart.get().identifier().equals(e.getKey())) {
-                    usedPart = wildcardPart;
-                }
+            written.put(usedPart.get().fileName(), e.getValue());
+        }
 
-                if (usedPart.isEmpty()) {
-                    continue;
+        // Write to a temporary file first, so that a failure never leaves a truncated file behind
+        var target = out.resolveSibling(out.getFileName() + ".tmp");
+        try {
+            try (var zout = new ParallelZipOutputStream(Files.newOutputStream(target))) {
+                if (existingZip != null) {
+                    for (var entry : existingZip.getEntries()) {
+                        if (written.containsKey(entry.name())) {
+                            continue;
+                        }
+
+                        // Kept entries are copied as they are, without inflating and deflating them again
+                        zout.copyEntry(entry, existingZip.getRawData(entry));
+                    }
                 }
 
-                var path = fs.getPath(usedPart.get().fileName());
-                try (var partOut = Files.newOutputStream(path)) {
+                for (var e : written.entrySet()) {
+                    zout.putNextEntry(e.getKey());
                     if (header != null) {
-                        partOut.write(header);
-                        partOut.write("\n".getBytes());
+                        zout.write(header);
+                        zout.write("\n".getBytes());
                     }
-                    NodeWriter.write(partOut, type.getParser().getCharset(), e.getValue(), "\t", 0);
+                    // Zip parts are always written without indentation, even if a structure overrides writeData for plaintext files
+                    NodeWriter.writeParallel(zout, type.getParser().getCharset(), e.getValue(), "\t", 0);
                 }
             }
+
+            try {
+                Files.move(target, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(target, out, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(target);
         }
     }
 
@@ -0,0 +1,111 @@
+package com.crschnick.pdxu.io.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the word scan of the tokenizer produces exactly the same tokens as examining every byte.
+ * Every sample is shifted over all positions of a word and cut at every length,
+ * so that special characters end up at every word boundary and in the bytewise tail.
+ */
+public class TextFormatTokenizerTest {
+
+    private static final List<byte[]> SAMPLES = List.of(
+            ascii("key=value\nother=value2 third = 1.5\n"),
+            ascii("a={ b={ c=1 d=2 } e={ 1 2 3 } }\nlist={ \"a\" \"b\" }\n{ } {}\n"),
+            ascii("name=\"a \\\"quoted\\\" value\"\nescape=\"back\\\\\" next=\"\\\\\\\"\"\n"),
+            ascii("a=1 # comment with = and { } \" chars\nb=2 #\n#comment\n c=3 #no newline"),
+            ascii("name=\"$VARIABLE$\"\n$macro$=yes\nvalue=$x\nprice=$10 d=a$b$c\n"),
+            ascii("trigger=@[ a + b ] list=[[ inner \"=\" ]] x=[y]\n"),
+            ascii("a=1\r\nb=\t2\r\n\r\n  c =  { \t1\t2 }\r\n"),
+            concat(ascii("utf8=\""), "Ærøskøbing Köln Москва 東京".getBytes(StandardCharsets.UTF_8),
+                    ascii("\" "), "unquoted_ü_ß=é".getBytes(StandardCharsets.UTF_8), ascii("\n")),
+            concat(ascii("cp1252="), new byte[]{(byte) 0xE9, (byte) 0x80, (byte) 0xFF, (byte) 0xA0},
+                    ascii(" q=\""), new byte[]{(byte) 0x9F, (byte) 0xC0, '=', (byte) 0xFE}, ascii("\"\n")),
+            concat(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, ascii("bom=yes\n"))
+    );
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        var out = new ByteArrayOutputStream();
+        for (byte[] p : parts) {
+            out.writeBytes(p);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void wordScanMatchesBytewise() {
+        for (byte[] sample : SAMPLES) {
+            for (int shift = 0; shift < Long.BYTES * 2; shift++) {
+                var padding = new byte[shift];
+                Arrays.fill(padding, (byte) ' ');
+                var shifted = concat(padding, sample);
+                for (int length = 0; length <= shifted.length; length++) {
+                    var input = Arrays.copyOf(shifted, length);
+                    compare(input, false);
+                    compare(input, true);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void wordScanMatchesBytewiseForConcatenatedSamples() {
+        var input = concat(SAMPLES.toArray(byte[][]::new));
+        for (int start = 0; start < Long.BYTES * 2; start++) {
+            compare(Arrays.copyOfRange(input, start, input.length), false);
+        }
+    }
+
+    private static void compare(byte[] input, boolean strict) {
+        var description = new String(input, StandardCharsets.ISO_8859_1) + " (strict: " + strict + ")";
+        var word = new TextFormatTokenizer("test", input, 0, strict, true);
+        var bytewise = new TextFormatTokenizer("test", input, 0, strict, false);
+        ParseException wordError = tokenize(word);
+        ParseException bytewiseError = tokenize(bytewise);
+        if (wordError != null || bytewiseError != null) {
+            assertNotNull(wordError, description);
+            assertNotNull(bytewiseError, description);
+            assertEquals(bytewiseError.getMessage(), wordError.getMessage(), description);
+            return;
+        }
+
+        assertEquals(bytewise.getScalarCount(), word.getScalarCount(), description);
+        assertEquals(bytewise.getTokenCount(), word.getTokenCount(), description);
+        assertEquals(bytewise.getArrayCount(), word.getArrayCount(), description);
+
+        int scalars = bytewise.getScalarCount();
+        assertArrayEquals(
+                Arrays.copyOf(bytewise.getScalarsStart(), scalars), Arrays.copyOf(word.getScalarsStart(), scalars), description);
+        for (int i = 0; i < scalars; i++) {
+            assertEquals(bytewise.getScalarLength(i), word.getScalarLength(i), description);
+        }
+
+        // Include the final close group token
+        int tokens = bytewise.getTokenCount() + 1;
+        assertArrayEquals(
+                Arrays.copyOf(bytewise.getTokenTypes(), tokens), Arrays.copyOf(word.getTokenTypes(), tokens), description);
+        int arrays = bytewise.getArrayCount();
+        assertArrayEquals(
+                Arrays.copyOf(bytewise.getArraySizes(), arrays), Arrays.copyOf(word.getArraySizes(), arrays), description);
+    }
+
+    private static ParseException tokenize(TextFormatTokenizer tokenizer) {
+        try {
+            tokenizer.tokenize();
+            return null;
+        } catch (ParseException e) {
+            return e;
+        }
+    }
+}